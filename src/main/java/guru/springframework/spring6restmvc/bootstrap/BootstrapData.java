@@ -94,7 +94,7 @@ public class BootstrapData implements CommandLineRunner {
             Beer beer3 = Beer.builder()
                     .beerName("Sunshine City")
                     .beerStyle(BeerStyle.IPA)
-                    .upc("12356")
+                    .upc("12356333")
                     .price(new BigDecimal("13.99"))
                     .quantityOnHand(144)
                     .createdDate(LocalDateTime.now())
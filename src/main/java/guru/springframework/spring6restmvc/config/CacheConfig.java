@@ -0,0 +1,38 @@
+package guru.springframework.spring6restmvc.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Bounded, TTL evicting Caffeine caches. Hit, miss and eviction counts are recorded and published by actuator
+ * under {@code /actuator/metrics/cache.gets} and {@code /actuator/metrics/cache.evictions}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BEER_CACHE = "beerCache";
+    public static final String BEER_STYLE_FACET_CACHE = "beerStyleFacetCache";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${beer.cache.maximum-size:1000}") long maximumSize,
+                                     @Value("${beer.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(BEER_CACHE, BEER_STYLE_FACET_CACHE);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+
+        // puts and evictions made inside a transaction wait for it to commit, so a rollback never leaks into the cache
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
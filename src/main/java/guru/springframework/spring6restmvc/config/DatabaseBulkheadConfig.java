@@ -0,0 +1,49 @@
+package guru.springframework.spring6restmvc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * With {@code spring.threads.virtual.enabled=true} every request runs on its own virtual thread, so request
+ * concurrency is no longer capped by Tomcat's worker pool but still is by the Hikari pool. The Hikari data source is
+ * wrapped in a {@link BulkheadDataSource} with one permit per pooled connection, so excess requests park on the
+ * bulkhead instead of holding a carrier thread while they wait for a connection.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "beer.db.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class DatabaseBulkheadConfig {
+
+    // what Hikari falls back to when maximum-pool-size is left unset
+    static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    static BeanPostProcessor bulkheadDataSourcePostProcessor(
+            @Value("${beer.db.bulkhead.acquire-timeout:30s}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // spring.datasource.hikari.* is bound before initialization, so the pool size is final here. Left
+                // unset it reads -1 until the pool starts, so the default is pinned on the pool and the bulkhead alike.
+                if (bean instanceof HikariDataSource hikariDataSource) {
+                    if (hikariDataSource.getMaximumPoolSize() < 1) {
+                        hikariDataSource.setMaximumPoolSize(HIKARI_DEFAULT_POOL_SIZE);
+                    }
+
+                    return new BulkheadDataSource(hikariDataSource, hikariDataSource.getMaximumPoolSize(),
+                            acquireTimeout);
+                }
+
+                return bean;
+            }
+        };
+    }
+}
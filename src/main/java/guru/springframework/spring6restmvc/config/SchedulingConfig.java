@@ -0,0 +1,13 @@
+package guru.springframework.spring6restmvc.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs run on Boot's auto-configured task scheduler, which uses virtual threads when
+ * {@code spring.threads.virtual.enabled} is set.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,18 +1,34 @@
 package guru.springframework.spring6restmvc.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring6restmvc.model.BeerBulkRequest;
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerSortOrder;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.InventoryAdjustment;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import guru.springframework.spring6restmvc.services.BeerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -21,11 +37,29 @@ public class BeerController {
 
     public static final String BEER_PATH = "/api/v1/beer";
     public static final String BEER_PATH_ID = BEER_PATH + "/{beerId}";
+    public static final String BEER_EXPORT_PATH = BEER_PATH + "/export";
+    public static final String BEER_BULK_PATH = BEER_PATH + "/bulk";
+    public static final String BEER_STYLE_FACET_PATH = BEER_PATH + "/facets/style";
+    public static final String BEER_UPC_PATH = BEER_PATH + "/upc/{upc}";
+    public static final String BEER_INVENTORY_PATH = BEER_PATH_ID + "/inventory";
 
     private final BeerService beerService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * With {@code If-Match: "<version>"} the patch only applies while the beer is still at that version (412
+     * otherwise), and the response carries the new version as its ETag.
+     */
     @PatchMapping(BEER_PATH_ID)
-    public ResponseEntity updateBeerPatchById(@PathVariable("beerId")UUID beerId, @RequestBody BeerDTO beer){
+    public ResponseEntity updateBeerPatchById(@PathVariable("beerId")UUID beerId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestBody BeerDTO beer){
+
+        Integer version = ifMatch != null ? ETags.versionFromIfMatch(ifMatch) : null;
+
+        if (version != null) {
+            return conditionalUpdate(() -> beerService.patchBeerByIdIfMatch(beerId, version, beer));
+        }
 
         beerService.patchBeerById(beerId, beer);
 
@@ -43,8 +77,34 @@ public class BeerController {
         return new ResponseEntity(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Adds (or with a negative delta, removes) stock without a read-modify-write cycle; 409 when there is not enough
+     * stock to take out.
+     */
+    @PostMapping(BEER_INVENTORY_PATH)
+    public ResponseEntity adjustInventory(@PathVariable("beerId") UUID beerId,
+                                          @Validated @RequestBody InventoryAdjustment adjustment) {
+
+        if (!beerService.adjustInventory(beerId, adjustment.getDelta())) {
+            throw new NotFoundException();
+        }
+
+        return new ResponseEntity(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Conditional with {@code If-Match}, see {@link #updateBeerPatchById}.
+     */
     @PutMapping(BEER_PATH_ID)
-    public ResponseEntity updateById(@PathVariable("beerId") UUID beerId, @Validated @RequestBody BeerDTO beer) {
+    public ResponseEntity updateById(@PathVariable("beerId") UUID beerId,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                     @Validated @RequestBody BeerDTO beer) {
+
+        Integer version = ifMatch != null ? ETags.versionFromIfMatch(ifMatch) : null;
+
+        if (version != null) {
+            return conditionalUpdate(() -> beerService.updateBeerByIdIfMatch(beerId, version, beer));
+        }
 
         if (beerService.updateBeerById(beerId, beer).isEmpty()) {
             throw new NotFoundException();
@@ -64,22 +124,138 @@ public class BeerController {
         return new ResponseEntity(headers, HttpStatus.CREATED);
     }
 
+    /**
+     * Creates all beers in one transaction; nothing is saved unless every beer passes validation.
+     */
+    @PostMapping(BEER_BULK_PATH)
+    public ResponseEntity<List<UUID>> handleBulkPost(@Validated @RequestBody BeerBulkRequest bulkRequest) {
+
+        List<UUID> savedIds = beerService.saveNewBeers(bulkRequest.getBeers());
+
+        return new ResponseEntity<>(savedIds, HttpStatus.CREATED);
+    }
+
+    /**
+     * {@code beerStyle} may be repeated or comma separated to match any of several styles; {@code minPrice} and
+     * {@code maxPrice} are inclusive. {@code sort} takes one of the indexed keys in {@link BeerSortOrder}, optionally
+     * followed by {@code ,desc}; any other value is rejected with 400.
+     */
     @GetMapping(value = BEER_PATH)
     public Page<BeerDTO> listBeers(@RequestParam(required = false) String beerName,
-                                   @RequestParam(required = false) BeerStyle beerStyle,
+                                   @RequestParam(required = false) List<BeerStyle> beerStyle,
+                                   @RequestParam(required = false) BigDecimal minPrice,
+                                   @RequestParam(required = false) BigDecimal maxPrice,
                                    @RequestParam(required = false) Boolean showInventory,
+                                   @RequestParam(required = false) BeerSortOrder sort,
                                    @RequestParam(required = false) Integer pageNumber,
-                                   @RequestParam(required = false) Integer pageSize) {
-        return beerService.listBeers(beerName, beerStyle, showInventory, pageNumber, pageSize);
+                                   @RequestParam(required = false) Integer pageSize,
+                                   WebRequest webRequest) {
+
+        Page<BeerDTO> beers = beerService.listBeers(beerName, beerStyle, minPrice, maxPrice, showInventory, sort,
+                pageNumber, pageSize);
+
+        if (webRequest.checkNotModified(ETags.forPage(beers))) {
+            return null;
+        }
+
+        return beers;
+    }
+
+    /**
+     * Count-free mode, picked with {@code withTotal=false}: the response says whether it is the last page but
+     * carries no total, which saves the COUNT query behind every {@link Page}.
+     */
+    @GetMapping(value = BEER_PATH, params = {"withTotal=false", "!after"})
+    public Slice<BeerDTO> listBeersSlice(@RequestParam(required = false) String beerName,
+                                         @RequestParam(required = false) List<BeerStyle> beerStyle,
+                                         @RequestParam(required = false) BigDecimal minPrice,
+                                         @RequestParam(required = false) BigDecimal maxPrice,
+                                         @RequestParam(required = false) Boolean showInventory,
+                                         @RequestParam(required = false) BeerSortOrder sort,
+                                         @RequestParam(required = false) Integer pageNumber,
+                                         @RequestParam(required = false) Integer pageSize) {
+        return beerService.listBeersSlice(beerName, beerStyle, minPrice, maxPrice, showInventory, sort, pageNumber,
+                pageSize);
     }
 
+    /**
+     * Keyset mode, picked when the client sends {@code after}. An empty {@code after} starts at the first page;
+     * each response carries the cursor for the next one. The cursor encodes the beer name, so this mode always
+     * runs in the default name order.
+     */
+    @GetMapping(value = BEER_PATH, params = "after")
+    public KeysetPage<BeerDTO> listBeersAfter(@RequestParam(required = false) String beerName,
+                                              @RequestParam(required = false) List<BeerStyle> beerStyle,
+                                              @RequestParam(required = false) BigDecimal minPrice,
+                                              @RequestParam(required = false) BigDecimal maxPrice,
+                                              @RequestParam(required = false) Boolean showInventory,
+                                              @RequestParam(required = false) KeysetCursor after,
+                                              @RequestParam(required = false) Integer pageSize) {
+
+        // a cursor without a name cannot seek into the name order
+        if (after != null && after.sortValue() == null) {
+            throw new BadRequestException("Cursor carries no beer name");
+        }
+
+        return beerService.listBeersAfter(beerName, beerStyle, minPrice, maxPrice, showInventory, after, pageSize);
+    }
+
+
+    /**
+     * Beer count per style for the style filter, optionally narrowed by the same name term as the listing.
+     */
+    @GetMapping(BEER_STYLE_FACET_PATH)
+    public Map<BeerStyle, Long> countBeersByStyle(@RequestParam(required = false) String beerName) {
+        return beerService.countBeersByStyle(beerName);
+    }
+
+    /**
+     * The whole catalog as newline-delimited JSON, one beer per line, written while the rows are still being read.
+     */
+    @GetMapping(value = BEER_EXPORT_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBeers() {
+        return NdjsonResponses.stream(objectMapper.writerFor(BeerDTO.class), beerService::exportBeers);
+    }
+
+    /**
+     * Scanner lookup: the upc resolves to an id from memory and the beer comes from the beer cache, so a warm
+     * lookup does not touch the database.
+     */
+    @GetMapping(BEER_UPC_PATH)
+    public BeerDTO getBeerByUpc(@PathVariable("upc") String upc) {
+
+        return beerService.getBeerByUpc(upc).orElseThrow(NotFoundException::new);
+    }
 
     @GetMapping(value = BEER_PATH_ID)
-    public BeerDTO getBeerById(@PathVariable("beerId") UUID beerId){
+    public BeerDTO getBeerById(@PathVariable("beerId") UUID beerId, WebRequest webRequest){
 
         log.debug("Get Beer by Id - in controller");
 
-        return beerService.getBeerById(beerId).orElseThrow(NotFoundException::new);
+        // the beer comes from the beer cache, so a warm conditional GET does not touch the database
+        BeerDTO beer = beerService.getBeerById(beerId).orElseThrow(NotFoundException::new);
+
+        if (beer.getVersion() != null && webRequest.checkNotModified(
+                ETags.forVersion(beer.getVersion(), beerService.getPendingInventory(beerId)))) {
+            return null;
+        }
+
+        return beer;
+    }
+
+    private ResponseEntity conditionalUpdate(Supplier<Optional<Integer>> update) {
+        Integer newVersion;
+
+        try {
+            newVersion = update.get().orElseThrow(NotFoundException::new);
+        } catch (OptimisticLockingFailureException e) {
+            throw new PreconditionFailedException(e);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETags.forVersion(newVersion));
+
+        return new ResponseEntity(headers, HttpStatus.NO_CONTENT);
     }
 
 }
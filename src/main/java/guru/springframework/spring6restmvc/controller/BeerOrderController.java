@@ -0,0 +1,41 @@
+package guru.springframework.spring6restmvc.controller;
+
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.services.BeerOrderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RequiredArgsConstructor
+@RestController
+public class BeerOrderController {
+    public static final String BEER_ORDER_PATH = "/api/v1/order";
+    public static final String BEER_ORDER_PATH_ID = BEER_ORDER_PATH + "/{beerOrderId}";
+
+    private final BeerOrderService beerOrderService;
+
+    /**
+     * Places the order with all of its lines in one transaction; 404 when the customer or any ordered beer does not
+     * exist, in which case nothing is saved.
+     */
+    @PostMapping(BEER_ORDER_PATH)
+    public ResponseEntity handlePost(@Validated @RequestBody BeerOrderDTO beerOrder) {
+
+        BeerOrderDTO savedOrder = beerOrderService.placeOrder(beerOrder).orElseThrow(NotFoundException::new);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Location", BEER_ORDER_PATH + "/" + savedOrder.getId().toString());
+
+        return new ResponseEntity(headers, HttpStatus.CREATED);
+    }
+
+    @GetMapping(BEER_ORDER_PATH_ID)
+    public BeerOrderDTO getBeerOrderById(@PathVariable("beerOrderId") UUID beerOrderId) {
+        return beerOrderService.getBeerOrderById(beerOrderId).orElseThrow(NotFoundException::new);
+    }
+}
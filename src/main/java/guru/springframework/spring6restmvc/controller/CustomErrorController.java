@@ -1,6 +1,10 @@
 package guru.springframework.spring6restmvc.controller;
 
+import guru.springframework.spring6restmvc.services.EntityInUseException;
+import guru.springframework.spring6restmvc.services.InsufficientInventoryException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -9,11 +13,14 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @ControllerAdvice
 public class CustomErrorController {
 
+    private static final String UPC_CONSTRAINT = "ux_beer_upc";
+
     @ExceptionHandler
     ResponseEntity handleJPAViolations(TransactionSystemException exception) {
         ResponseEntity.BodyBuilder responseEntity = ResponseEntity.badRequest();
@@ -47,4 +54,26 @@ public class CustomErrorController {
 
         return ResponseEntity.badRequest().body(errorList);
     }
+
+    @ExceptionHandler(InsufficientInventoryException.class)
+    ResponseEntity handleInsufficientInventory(InsufficientInventoryException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(List.of(Map.of("delta", exception.getMessage())));
+    }
+
+    @ExceptionHandler(EntityInUseException.class)
+    ResponseEntity handleEntityInUse(EntityInUseException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(List.of(Map.of("id", exception.getMessage())));
+    }
+
+    // only a duplicate upc is a conflict the client can resolve; other violations keep the default handling
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    ResponseEntity handleDataIntegrityViolation(DataIntegrityViolationException exception) {
+        if (exception.getCause() instanceof org.hibernate.exception.ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(UPC_CONSTRAINT)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(List.of(Map.of("upc", "already in use")));
+        }
+
+        throw exception;
+    }
 }
@@ -1,14 +1,20 @@
 package guru.springframework.spring6restmvc.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import guru.springframework.spring6restmvc.services.CustomerService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
 import java.util.UUID;
 
 @RequiredArgsConstructor
@@ -16,8 +22,10 @@ import java.util.UUID;
 public class CustomerController {
     public static final String CUSTOMER_PATH = "/api/v1/customer";
     public static final String CUSTOMER_PATH_ID = CUSTOMER_PATH + "/{customerId}";
+    public static final String CUSTOMER_EXPORT_PATH = CUSTOMER_PATH + "/export";
 
     private final CustomerService customerService;
+    private final ObjectMapper objectMapper;
 
     @PatchMapping(CUSTOMER_PATH_ID)
     public ResponseEntity updateBeerPatchById(@PathVariable("customerId") UUID customerId, @RequestBody CustomerDTO customer){
@@ -59,14 +67,53 @@ public class CustomerController {
         return new ResponseEntity(headers, HttpStatus.CREATED);
     }
 
+    /**
+     * Customers by name, a page at a time, with the same {@code pageNumber} / {@code pageSize} parameters as the
+     * beer listing.
+     */
     @GetMapping(CUSTOMER_PATH)
-    public List<CustomerDTO> listCustomers(){
-        return customerService.listCustomers();
+    public Page<CustomerDTO> listCustomers(@RequestParam(required = false) Integer pageNumber,
+                                           @RequestParam(required = false) Integer pageSize) {
+        return customerService.listCustomers(pageNumber, pageSize);
+    }
+
+    /**
+     * Keyset mode, picked when the client sends {@code after}. An empty {@code after} starts at the first page;
+     * each response carries the cursor for the next one. Pages follow the same name order as the offset listing.
+     */
+    @GetMapping(value = CUSTOMER_PATH, params = "after")
+    public KeysetPage<CustomerDTO> listCustomersAfter(@RequestParam(required = false) KeysetCursor after,
+                                                      @RequestParam(required = false) Integer pageSize) {
+        return customerService.listCustomersAfter(after, pageSize);
+    }
+
+    /**
+     * Every customer as newline-delimited JSON, one customer per line, written while the rows are still being read.
+     */
+    @GetMapping(value = CUSTOMER_EXPORT_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCustomers() {
+        return NdjsonResponses.stream(objectMapper.writerFor(CustomerDTO.class), customerService::exportCustomers);
     }
 
     @GetMapping(CUSTOMER_PATH_ID)
-    public CustomerDTO getCustomer(@PathVariable("customerId") UUID id){
-        return customerService.getCustomerById(id).orElseThrow(NotFoundException::new);
+    public CustomerDTO getCustomer(@PathVariable("customerId") UUID id, WebRequest webRequest){
+
+        // a conditional GET is answered from the version column alone, before the customer itself is loaded
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Integer version = customerService.getCustomerVersion(id).orElseThrow(NotFoundException::new);
+
+            if (webRequest.checkNotModified(ETags.forVersion(version))) {
+                return null;
+            }
+        }
+
+        CustomerDTO customer = customerService.getCustomerById(id).orElseThrow(NotFoundException::new);
+
+        if (customer.getVersion() != null) {
+            webRequest.checkNotModified(ETags.forVersion(customer.getVersion()));
+        }
+
+        return customer;
     }
 
 }
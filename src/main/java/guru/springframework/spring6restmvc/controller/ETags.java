@@ -0,0 +1,70 @@
+package guru.springframework.spring6restmvc.controller;
+
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Strong entity tags derived from the {@code @Version} column, so they change exactly when a row does. Inventory
+ * adjustments not yet written behind do not move the version, so beer tags append them after a {@code /}.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String forVersion(Object version) {
+        return "\"" + version + "\"";
+    }
+
+    static String forVersion(Object version, long pendingInventory) {
+        return pendingInventory == 0 ? forVersion(version) : "\"" + version + "/" + pendingInventory + "\"";
+    }
+
+    /**
+     * Version named by an {@code If-Match} header, or null for {@code *}. Pending inventory in the tag is ignored, as
+     * writes are checked against the row. A weak, unparseable or multi-valued tag can never match a version tag, so
+     * it fails the precondition.
+     */
+    static Integer versionFromIfMatch(String ifMatch) {
+        String tag = ifMatch.trim();
+
+        if (tag.equals("*")) {
+            return null;
+        }
+
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+
+        if (tag.indexOf('/') > 0) {
+            tag = tag.substring(0, tag.indexOf('/'));
+        }
+
+        try {
+            return Integer.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not name a version: " + ifMatch);
+        }
+    }
+
+    /**
+     * Digest of the page position and of every (id, version, quantity on hand) on it; it changes when any listed
+     * beer changes, including by unwritten inventory adjustments, or when rows move in or out of the page.
+     */
+    static String forPage(Page<BeerDTO> page) {
+        StringBuilder versions = new StringBuilder()
+                .append(page.getNumber()).append('/')
+                .append(page.getSize()).append('/')
+                .append(page.getTotalElements());
+
+        page.forEach(beerDTO -> versions.append(';')
+                .append(beerDTO.getId()).append(':')
+                .append(beerDTO.getVersion()).append(':')
+                .append(beerDTO.getQuantityOnHand()));
+
+        return "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
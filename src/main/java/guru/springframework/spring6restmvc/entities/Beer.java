@@ -6,6 +6,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.JdbcTypeCode;
@@ -22,15 +23,22 @@ import java.util.UUID;
 @Setter
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "ix_beer_name_id", columnList = "beer_name, id"),
+        @Index(name = "ix_beer_style_name_id", columnList = "beer_style, beer_name, id"),
+        @Index(name = "ux_beer_upc", columnList = "upc", unique = true),
+        @Index(name = "ix_beer_update_date_id", columnList = "update_date, id"),
+        @Index(name = "ix_beer_price_id", columnList = "price, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Beer {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
-    @JdbcTypeCode(SqlTypes.CHAR)
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false)
+    @GenericGenerator(name = "UUID", type = TimeOrderedUuidGenerator.class)
+    @JdbcTypeCode(SqlTypes.UUID)
+    @Column(updatable = false, nullable = false)
     private UUID id;
 
     @Version
@@ -39,28 +47,35 @@ public class Beer {
     @NotNull
     @NotBlank
     @Size(max = 50)
+    @Column(name = "beer_name")
     private String beerName;
 
     @NotNull
     @JdbcTypeCode(value = SqlTypes.SMALLINT)
+    @Column(name = "beer_style")
     private BeerStyle beerStyle;
 
     @NotNull
     @NotBlank
+    @Column(name = "upc")
     private String upc;
     private Integer quantityOnHand;
 
     @NotNull
+    @Column(name = "price")
     private BigDecimal price;
 
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "beer")
     private Set<BeerOrderLine> beerOrderLines;
 
     @Builder.Default
+    @BatchSize(size = 50)
     @ManyToMany
     @JoinTable(name = "beer_category",
             joinColumns = @JoinColumn(name = "beer_id"),
-            inverseJoinColumns = @JoinColumn(name = "category_id"))
+            inverseJoinColumns = @JoinColumn(name = "category_id"),
+            indexes = @Index(name = "ix_beer_category_category_beer", columnList = "category_id, beer_id"))
     private Set<Category> categories = new HashSet<>();
 
     public void addCategory(Category category) {
@@ -77,6 +92,7 @@ public class Beer {
     private LocalDateTime createdDate;
 
     @UpdateTimestamp
+    @Column(name = "update_date")
     private LocalDateTime updateDate;
 }
 
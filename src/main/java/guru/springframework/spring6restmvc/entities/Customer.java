@@ -2,6 +2,7 @@ package guru.springframework.spring6restmvc.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
@@ -15,15 +16,16 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
+@Table(indexes = @Index(name = "ix_customer_name_id", columnList = "name, id"))
 @AllArgsConstructor
 @NoArgsConstructor
 public class Customer {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @JdbcTypeCode(SqlTypes.CHAR)
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
-    @Column(length = 36, columnDefinition = "varchar(36)", updatable = false, nullable = false)
+    @JdbcTypeCode(SqlTypes.UUID)
+    @GenericGenerator(name = "UUID", type = TimeOrderedUuidGenerator.class)
+    @Column(updatable = false, nullable = false)
     private UUID id;
     private String name;
 
@@ -43,6 +45,7 @@ public class Customer {
     private LocalDateTime updateDate;
 
     @Builder.Default
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "customer")
     private Set<BeerOrder> beerOrders = new HashSet<>();
 
@@ -0,0 +1,35 @@
+package guru.springframework.spring6restmvc.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerOrderDTO {
+    private UUID id;
+    private Long version;
+
+    @NotNull
+    private UUID customerId;
+    private String customerName;
+    private String customerRef;
+    private String trackingNumber;
+
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid @NotNull BeerOrderLineDTO> beerOrderLines;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastModifiedDate;
+}
@@ -0,0 +1,31 @@
+package guru.springframework.spring6restmvc.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerOrderLineDTO {
+    private UUID id;
+    private Long version;
+
+    @NotNull
+    private UUID beerId;
+    private String beerName;
+
+    @NotNull
+    @Min(1)
+    private Integer orderQuantity;
+    private Integer quantityAllocated;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastModifiedDate;
+}
@@ -0,0 +1,71 @@
+package guru.springframework.spring6restmvc.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Listing order picked by the client as {@code sort=<key>} or {@code sort=<key>,desc}. Only keys backed by an index
+ * on the beer table are accepted, so a listing is always read in index order instead of being sorted after the
+ * fact. Every order ends on the id, which keeps pages stable when sort values repeat.
+ */
+public record BeerSortOrder(Key key, boolean descending) {
+
+    public static final BeerSortOrder DEFAULT = new BeerSortOrder(Key.BEER_NAME, false);
+
+    public enum Key {
+        // ix_beer_name_id
+        BEER_NAME("beerName", "beerName"),
+        // ix_beer_style_name_id; styles are stored as ordinals, so they sort in declaration order
+        BEER_STYLE("beerStyle", "beerStyle", "beerName"),
+        // ix_beer_price_id
+        PRICE("price", "price"),
+        // ix_beer_update_date_id
+        UPDATE_DATE("updateDate", "updateDate");
+
+        private final String parameterValue;
+        private final List<String> properties;
+
+        Key(String parameterValue, String... properties) {
+            this.parameterValue = parameterValue;
+            this.properties = List.of(properties);
+        }
+    }
+
+    public static BeerSortOrder valueOf(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT;
+        }
+
+        String[] parts = value.split(",", -1);
+
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Malformed sort: " + value);
+        }
+
+        Key key = Arrays.stream(Key.values())
+                .filter(candidate -> candidate.parameterValue.equals(parts[0].trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort key: " + parts[0]));
+
+        if (parts.length == 1 || "asc".equalsIgnoreCase(parts[1].trim())) {
+            return new BeerSortOrder(key, false);
+        }
+
+        if ("desc".equalsIgnoreCase(parts[1].trim())) {
+            return new BeerSortOrder(key, true);
+        }
+
+        throw new IllegalArgumentException("Unsupported sort direction: " + parts[1]);
+    }
+
+    /**
+     * Entity properties to order by, in order, ending with the id tie-breaker.
+     */
+    public List<String> properties() {
+        List<String> properties = new ArrayList<>(key.properties);
+        properties.add("id");
+
+        return properties;
+    }
+}
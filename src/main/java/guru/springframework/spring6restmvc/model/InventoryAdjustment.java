@@ -0,0 +1,20 @@
+package guru.springframework.spring6restmvc.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAdjustment {
+
+    /**
+     * Units to add to quantity on hand; negative to take stock out.
+     */
+    @NotNull
+    private Integer delta;
+}
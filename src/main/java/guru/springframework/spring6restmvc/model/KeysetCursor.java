@@ -0,0 +1,43 @@
+package guru.springframework.spring6restmvc.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last row a client has seen in a keyset ordered listing. Travels over the wire as an opaque,
+ * URL safe token so clients never depend on the sort columns behind it.
+ */
+public record KeysetCursor(String sortValue, UUID id) {
+
+    public static final KeysetCursor FIRST = new KeysetCursor("", new UUID(0L, 0L));
+
+    private static final int UUID_LENGTH = 36;
+
+    // sets a sort value apart from the id, so an empty one still differs from none
+    private static final char SEPARATOR = ':';
+
+    public static KeysetCursor valueOf(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+
+        String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+
+        if (decoded.length() < UUID_LENGTH
+                || decoded.length() > UUID_LENGTH && decoded.charAt(UUID_LENGTH) != SEPARATOR) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+
+        UUID id = UUID.fromString(decoded.substring(0, UUID_LENGTH));
+        String sortValue = decoded.length() > UUID_LENGTH ? decoded.substring(UUID_LENGTH + 1) : null;
+
+        return new KeysetCursor(sortValue, id);
+    }
+
+    public String toToken() {
+        String raw = sortValue == null ? id.toString() : id.toString() + SEPARATOR + sortValue;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,17 @@
+package guru.springframework.spring6restmvc.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class KeysetPage<T> {
+    private List<T> content;
+
+    /**
+     * Token to pass as {@code after} for the following page, or null once the listing is exhausted.
+     */
+    private String nextCursor;
+}
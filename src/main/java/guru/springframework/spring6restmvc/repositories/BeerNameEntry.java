@@ -0,0 +1,11 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import guru.springframework.spring6restmvc.model.BeerStyle;
+
+import java.util.UUID;
+
+/**
+ * The few columns the in-memory beer name index needs, read without hydrating full entities.
+ */
+public record BeerNameEntry(UUID id, String beerName, BeerStyle beerStyle) {
+}
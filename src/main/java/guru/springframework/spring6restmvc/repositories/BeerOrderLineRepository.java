@@ -0,0 +1,39 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import guru.springframework.spring6restmvc.entities.BeerOrderLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface BeerOrderLineRepository extends JpaRepository<BeerOrderLine, UUID> {
+
+    @Query("select distinct l.beer.id from BeerOrderLine l " +
+            "where coalesce(l.quantityAllocated, 0) < l.orderQuantity and l.beer.quantityOnHand > 0")
+    List<UUID> findBeerIdsWithOpenLines();
+
+    // Oldest first, the order lines are allocated in; served by ix_beer_order_line_beer_created
+    @Query("select new guru.springframework.spring6restmvc.repositories.OpenOrderLine(l.id, l.beer.id, " +
+            "coalesce(l.beer.quantityOnHand, 0), l.orderQuantity, coalesce(l.quantityAllocated, 0)) from BeerOrderLine l " +
+            "where l.beer.id in :beerIds and coalesce(l.quantityAllocated, 0) < l.orderQuantity " +
+            "order by l.createdDate, l.id")
+    List<OpenOrderLine> findOpenLinesByBeerIdIn(@Param("beerIds") Collection<UUID> beerIds);
+
+    // Lines nothing had been allocated to yet, filled completely; the guard makes a line allocated elsewhere in the
+    // meantime show up as a short row count
+    @Modifying(clearAutomatically = true)
+    @Query("update BeerOrderLine l set l.quantityAllocated = l.orderQuantity, l.lastModifiedDate = :now, " +
+            "l.version = l.version + 1 where l.id in :ids and coalesce(l.quantityAllocated, 0) = 0")
+    int allocateInFull(@Param("ids") Collection<UUID> ids, @Param("now") Timestamp now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update BeerOrderLine l set l.quantityAllocated = :allocated + :quantity, l.lastModifiedDate = :now, " +
+            "l.version = l.version + 1 where l.id = :id and coalesce(l.quantityAllocated, 0) = :allocated")
+    int addToQuantityAllocated(@Param("id") UUID id, @Param("allocated") int allocated,
+                               @Param("quantity") int quantity, @Param("now") Timestamp now);
+}
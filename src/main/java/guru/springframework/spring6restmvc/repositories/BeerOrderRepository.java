@@ -1,10 +1,15 @@
 package guru.springframework.spring6restmvc.repositories;
 
 import guru.springframework.spring6restmvc.entities.BeerOrder;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface BeerOrderRepository extends JpaRepository<BeerOrder, UUID> {
 
+    // Order detail in one statement: every association the order DTO reads is joined in, whatever the line count
+    @EntityGraph(attributePaths = {"customer", "beerOrderShipment", "beerOrderLines", "beerOrderLines.beer"})
+    Optional<BeerOrder> findWithDetailsById(UUID id);
 }
@@ -1,18 +1,122 @@
 package guru.springframework.spring6restmvc.repositories;
 
+import guru.springframework.spring6restmvc.config.CacheConfig;
 import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface BeerRepository extends JpaRepository<Beer, UUID> {
+public interface BeerRepository extends JpaRepository<Beer, UUID>, BeerRepositoryCustom {
+
+    String BEER_DTO_SELECT = "select new guru.springframework.spring6restmvc.model.BeerDTO(b.id, b.version, " +
+            "b.beerName, b.beerStyle, b.upc, b.quantityOnHand, b.price, b.createdDate, b.updateDate) from Beer b";
+
+    // same shape, but quantity_on_hand is never read from the table
+    String BEER_DTO_WITHOUT_INVENTORY_SELECT = "select new guru.springframework.spring6restmvc.model.BeerDTO(b.id, " +
+            "b.version, b.beerName, b.beerStyle, b.upc, cast(null as Integer), b.price, b.createdDate, b.updateDate) " +
+            "from Beer b";
 
     Page<Beer> findAllByBeerNameIsLikeIgnoreCase(String beerName, Pageable pageable);
 
-    Page<Beer> findAllByBeerStyle(BeerStyle beerStyle, Pageable pageable);
+    // Page of beers resolved by the name index - constructor expressions straight into BeerDTO
+
+    @Query(BEER_DTO_SELECT + " where b.id in :ids")
+    List<BeerDTO> findBeerDtosByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(BEER_DTO_WITHOUT_INVENTORY_SELECT + " where b.id in :ids")
+    List<BeerDTO> findBeerDtosWithoutInventoryByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Style facets - one aggregate query instead of a COUNT per style; styles without beers are absent
+
+    @Query("select b.beerStyle as beerStyle, count(b) as beerCount from Beer b group by b.beerStyle")
+    List<BeerStyleCount> findStyleCounts();
+
+    @Query("select b.beerStyle as beerStyle, count(b) as beerCount from Beer b " +
+            "where upper(b.beerName) like upper(:beerName) group by b.beerStyle")
+    List<BeerStyleCount> findStyleCountsByBeerNameLike(@Param("beerName") String beerName);
+
+    @Query("select b.id from Beer b where b.upc = :upc")
+    Optional<UUID> findIdByUpc(@Param("upc") String upc);
+
+    // Single beer by id. Cached here rather than in the service so reads can add unflushed inventory to the cached
+    // copy; the service writes keep the entry current.
+    @Cacheable(cacheNames = CacheConfig.BEER_CACHE, key = "#id", unless = "#result == null")
+    @Query(BEER_DTO_SELECT + " where b.id = :id")
+    Optional<BeerDTO> findBeerDtoById(@Param("id") UUID id);
+
+    @Query("select new guru.springframework.spring6restmvc.repositories.BeerNameEntry(b.id, b.beerName, b.beerStyle) " +
+            "from Beer b")
+    List<BeerNameEntry> findAllNameEntries();
+
+    @Query("select new guru.springframework.spring6restmvc.repositories.BeerNameEntry(b.id, b.beerName, b.beerStyle) " +
+            "from Beer b where b.id = :id")
+    Optional<BeerNameEntry> findNameEntryById(@Param("id") UUID id);
+
+    // Deletes without a load first - Spring Data's deleteById reads the entity before removing it. Hibernate removes
+    // the beer's beer_category links itself, in one statement ahead of the bulk delete.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Beer b where b.id = :id")
+    int deleteBeerById(@Param("id") UUID id);
+
+    // Inventory delta in one statement - the guard keeps stock from going negative, and concurrent adjustments queue on
+    // the row lock instead of overwriting each other. Zero rows means a missing beer or too little stock.
+    @Modifying(clearAutomatically = true)
+    @Query("update Beer b set b.quantityOnHand = coalesce(b.quantityOnHand, 0) + :delta, " +
+            "b.updateDate = :updateDate, b.version = b.version + 1 " +
+            "where b.id = :id and coalesce(b.quantityOnHand, 0) + :delta >= 0")
+    int adjustQuantityOnHand(@Param("id") UUID id, @Param("delta") int delta,
+                             @Param("updateDate") LocalDateTime updateDate);
+
+    @Query("select b.quantityOnHand from Beer b where b.id = :id")
+    Optional<Integer> findQuantityOnHandById(@Param("id") UUID id);
+
+    // Conditional writes - one UPDATE guarded by the version the client last saw, with no SELECT first. Bulk updates
+    // bypass @Version and @UpdateTimestamp, so both are maintained here. Zero rows means a missing beer or a stale
+    // version.
+    @Modifying(clearAutomatically = true)
+    @Query("update Beer b set b.beerName = :beerName, b.beerStyle = :beerStyle, b.upc = :upc, " +
+            "b.quantityOnHand = :quantityOnHand, b.price = :price, b.updateDate = :updateDate, " +
+            "b.version = b.version + 1 where b.id = :id and b.version = :version")
+    int updateIfVersionMatches(@Param("id") UUID id, @Param("version") Integer version,
+                               @Param("beerName") String beerName, @Param("beerStyle") BeerStyle beerStyle,
+                               @Param("upc") String upc, @Param("quantityOnHand") Integer quantityOnHand,
+                               @Param("price") BigDecimal price, @Param("updateDate") LocalDateTime updateDate);
+
+    // null parameters keep the current value
+    @Modifying(clearAutomatically = true)
+    @Query("update Beer b set b.beerName = coalesce(:beerName, b.beerName), " +
+            "b.beerStyle = coalesce(:beerStyle, b.beerStyle), b.upc = coalesce(:upc, b.upc), " +
+            "b.price = coalesce(:price, b.price), b.updateDate = :updateDate, " +
+            "b.version = b.version + 1 where b.id = :id and b.version = :version")
+    int patchIfVersionMatches(@Param("id") UUID id, @Param("version") Integer version,
+                              @Param("beerName") String beerName, @Param("beerStyle") BeerStyle beerStyle,
+                              @Param("upc") String upc, @Param("price") BigDecimal price,
+                              @Param("updateDate") LocalDateTime updateDate);
+
+    // Full catalog export - read-only entities fetched in batches of StreamingQueries.EXPORT_FETCH_SIZE. Must be
+    // consumed inside a transaction and closed afterwards.
 
-    Page<Beer> findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle(String beerName, BeerStyle beerStyle, Pageable pageable);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Beer b")
+    Stream<Beer> streamAllBy();
 }
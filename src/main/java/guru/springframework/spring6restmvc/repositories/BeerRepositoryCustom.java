@@ -0,0 +1,30 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Read-only listings for any combination of {@link BeerSpecifications}, projected straight into {@link BeerDTO}.
+ * With {@code hideInventory} quantity on hand is left out of the select.
+ */
+public interface BeerRepositoryCustom {
+
+    Page<BeerDTO> findBeerDtos(Specification<Beer> spec, boolean hideInventory, Pageable pageable);
+
+    /**
+     * Reads one row past the page instead of issuing a COUNT.
+     */
+    Slice<BeerDTO> findBeerDtoSlice(Specification<Beer> spec, boolean hideInventory, Pageable pageable);
+
+    /**
+     * Up to {@code limit} beers strictly after the cursor's (beerName, id), ordered by beer name and then id.
+     */
+    List<BeerDTO> findBeerDtosAfter(Specification<Beer> spec, boolean hideInventory, KeysetCursor after, int limit);
+}
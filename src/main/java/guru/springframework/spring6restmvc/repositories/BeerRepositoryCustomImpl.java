@@ -0,0 +1,126 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class BeerRepositoryCustomImpl implements BeerRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<BeerDTO> findBeerDtos(Specification<Beer> spec, boolean hideInventory, Pageable pageable) {
+        List<BeerDTO> content = selectBeerDtos(spec, hideInventory, pageable, null)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // the count is skipped when the page itself shows the total, e.g. a short first page
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<BeerDTO> findBeerDtoSlice(Specification<Beer> spec, boolean hideInventory, Pageable pageable) {
+        List<BeerDTO> content = selectBeerDtos(spec, hideInventory, pageable, null)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public List<BeerDTO> findBeerDtosAfter(Specification<Beer> spec, boolean hideInventory, KeysetCursor after,
+                                           int limit) {
+        return selectBeerDtos(spec, hideInventory, null, after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private TypedQuery<BeerDTO> selectBeerDtos(Specification<Beer> spec, boolean hideInventory, Pageable pageable,
+                                               KeysetCursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BeerDTO> query = cb.createQuery(BeerDTO.class);
+        Root<Beer> root = query.from(Beer.class);
+
+        Expression<Integer> quantityOnHand = hideInventory
+                ? cb.nullLiteral(Integer.class)
+                : root.get("quantityOnHand");
+
+        query.select(cb.construct(BeerDTO.class,
+                root.get("id"), root.get("version"), root.get("beerName"), root.get("beerStyle"), root.get("upc"),
+                quantityOnHand, root.get("price"), root.get("createdDate"), root.get("updateDate")));
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+
+        List<Order> orders = new ArrayList<>();
+
+        if (after != null) {
+            // beerName >= :name gives the index a range to seek into; the or only breaks ties within it
+            Expression<String> beerName = root.get("beerName");
+            Expression<UUID> id = root.get("id");
+
+            predicates.add(cb.greaterThanOrEqualTo(beerName, after.sortValue()));
+            predicates.add(cb.or(cb.greaterThan(beerName, after.sortValue()), cb.greaterThan(id, after.id())));
+
+            orders.add(cb.asc(beerName));
+            orders.add(cb.asc(id));
+        } else if (pageable != null) {
+            orders.addAll(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(orders);
+
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Beer> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Beer> root = query.from(Beer.class);
+
+        query.select(cb.count(root));
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,65 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Listing filters. Each factory returns {@code null} for an absent filter, which {@link Specification#and} skips, so
+ * a combination only carries the predicates the client asked for.
+ */
+public final class BeerSpecifications {
+
+    private BeerSpecifications() {
+    }
+
+    public static Specification<Beer> matching(String beerName, Collection<BeerStyle> beerStyles,
+                                               BigDecimal minPrice, BigDecimal maxPrice) {
+        return Specification.where(beerNameContains(beerName))
+                .and(beerStyleIn(beerStyles))
+                .and(priceAtLeast(minPrice))
+                .and(priceAtMost(maxPrice));
+    }
+
+    public static Specification<Beer> beerNameContains(String beerName) {
+        if (!StringUtils.hasText(beerName)) {
+            return null;
+        }
+
+        return (root, query, cb) -> cb.like(cb.upper(root.get("beerName")), "%" + beerName.toUpperCase(Locale.ROOT) + "%");
+    }
+
+    public static Specification<Beer> beerStyleIn(Collection<BeerStyle> beerStyles) {
+        if (beerStyles == null || beerStyles.isEmpty()) {
+            return null;
+        }
+
+        if (beerStyles.size() == 1) {
+            BeerStyle beerStyle = beerStyles.iterator().next();
+            return (root, query, cb) -> cb.equal(root.get("beerStyle"), beerStyle);
+        }
+
+        return (root, query, cb) -> root.get("beerStyle").in(beerStyles);
+    }
+
+    public static Specification<Beer> priceAtLeast(BigDecimal minPrice) {
+        if (minPrice == null) {
+            return null;
+        }
+
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Beer> priceAtMost(BigDecimal maxPrice) {
+        if (maxPrice == null) {
+            return null;
+        }
+
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+}
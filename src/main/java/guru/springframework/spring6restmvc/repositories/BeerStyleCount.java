@@ -0,0 +1,13 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import guru.springframework.spring6restmvc.model.BeerStyle;
+
+/**
+ * One row of a {@code group by beer_style} count.
+ */
+public interface BeerStyleCount {
+
+    BeerStyle getBeerStyle();
+
+    long getBeerCount();
+}
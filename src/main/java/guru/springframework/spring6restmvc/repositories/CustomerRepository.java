@@ -1,9 +1,55 @@
 package guru.springframework.spring6restmvc.repositories;
 
 import guru.springframework.spring6restmvc.entities.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+
+    @Query("select c.version from Customer c where c.id = :id")
+    Optional<Integer> findVersionById(@Param("id") UUID id);
+
+    // one statement instead of existsById plus a load and a delete; the row count says whether the customer existed
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Customer c where c.id = :id")
+    int deleteCustomerById(@Param("id") UUID id);
+
+    // Listing pages read in ix_customer_name_id order; the order is fixed here so a client cannot sort on a column
+    // without an index
+    Page<Customer> findAllByOrderByNameAscIdAsc(Pageable pageable);
+
+    // Keyset listing seeks along ix_customer_name_id in the same (name, id) order, so a page costs the same however
+    // deep it is. Names are optional and sort first: past a customer without one come the remaining customers without
+    // one, then every named customer
+    List<Customer> findAllByOrderByNameAscIdAsc(Limit limit);
+
+    @Query("select c from Customer c where c.name > :name or (c.name = :name and c.id > :id) " +
+            "order by c.name asc, c.id asc")
+    List<Customer> findAfterName(@Param("name") String name, @Param("id") UUID id, Limit limit);
+
+    @Query("select c from Customer c where (c.name is null and c.id > :id) or c.name is not null " +
+            "order by c.name asc, c.id asc")
+    List<Customer> findAfterNoName(@Param("id") UUID id, Limit limit);
+
+    // Full export - read-only entities fetched in batches of StreamingQueries.EXPORT_FETCH_SIZE. Must be consumed inside a
+    // transaction and closed afterwards.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQueries.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Customer c")
+    Stream<Customer> streamAllBy();
 }
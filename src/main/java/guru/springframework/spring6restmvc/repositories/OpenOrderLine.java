@@ -0,0 +1,14 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import java.util.UUID;
+
+/**
+ * An order line that still wants stock, with the quantity on hand of its beer, read without hydrating entities.
+ */
+public record OpenOrderLine(UUID id, UUID beerId, Integer quantityOnHand, Integer orderQuantity,
+                            Integer quantityAllocated) {
+
+    public int quantityOpen() {
+        return orderQuantity - quantityAllocated;
+    }
+}
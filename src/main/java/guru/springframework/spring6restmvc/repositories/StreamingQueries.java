@@ -0,0 +1,13 @@
+package guru.springframework.spring6restmvc.repositories;
+
+/**
+ * Settings shared by the repositories' streaming export queries.
+ */
+public final class StreamingQueries {
+
+    // rows pulled per round trip while streaming; needs useCursorFetch=true on MySQL
+    public static final String EXPORT_FETCH_SIZE = "500";
+
+    private StreamingQueries() {
+    }
+}
@@ -0,0 +1,270 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerNameEntry;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over beer names. Answers the same question as
+ * {@code upper(beer_name) like upper('%term%')} without scanning the beer table: the term's trigrams narrow the
+ * candidates, and a plain substring check on each candidate removes false positives.
+ * <p>
+ * The index is loaded lazily on the first search and then kept current by the write paths of
+ * {@link BeerServiceJPA}. Changes made inside a transaction are applied only after it commits. Writes from other
+ * instances are picked up by a periodic reload ({@code beer.name-index.refresh-interval-ms}).
+ * <p>
+ * Results come in the order the database lists beers by name: case-insensitive on the name, as the column
+ * collation compares, then the id in unsigned byte order, as {@code binary(16)} compares.
+ * <p>
+ * Two limits come with that. Matching and ordering use {@link String#CASE_INSENSITIVE_ORDER} and
+ * {@link String#toUpperCase}, which agree with MySQL's accent-insensitive default collation only for ASCII names: a
+ * search for {@code "cafe"} finds "Café Stout" in the database but not here, and accented names may sort
+ * differently. And each instance holds the whole beer table in memory and reloads all of it on every refresh
+ * interval (60 seconds by default), so memory and reload cost grow with the catalog and with the number of instances.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BeerNameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final Comparator<UUID> UNSIGNED_ID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private static final Comparator<Entry> NAME_ORDER = Comparator
+            .comparing(Entry::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Entry::id, UNSIGNED_ID_ORDER);
+
+    private final BeerRepository beerRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<UUID, Entry> entries = new HashMap<>();
+    private Map<String, Set<UUID>> postings = new HashMap<>();
+    private boolean loaded;
+
+    // changes committed while a reload reads the table, applied again on top of what it read
+    private List<Runnable> changesDuringReload;
+
+    @Value("${beer.name-index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * True when the index is switched on and the term means the same thing to the index as to SQL LIKE, i.e. it
+     * carries no {@code %} or {@code _} wildcards of its own.
+     */
+    public boolean canServe(String term) {
+        return enabled && term.indexOf('%') < 0 && term.indexOf('_') < 0;
+    }
+
+    /**
+     * Ids of all beers whose name contains the term (ignoring case) and, when styles are given, have one of them,
+     * ordered by beer name and then id.
+     */
+    public List<UUID> search(String term, Collection<BeerStyle> beerStyles) {
+        ensureLoaded();
+
+        String key = normalize(term);
+
+        lock.readLock().lock();
+        try {
+            List<Entry> matches = new ArrayList<>();
+
+            for (UUID id : candidates(key)) {
+                Entry entry = entries.get(id);
+
+                if (entry.key().contains(key)
+                        && (beerStyles == null || beerStyles.isEmpty() || beerStyles.contains(entry.beerStyle()))) {
+                    matches.add(entry);
+                }
+            }
+
+            matches.sort(NAME_ORDER);
+
+            return matches.stream()
+                    .map(Entry::id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(UUID id, String beerName, BeerStyle beerStyle) {
+        AfterCommit.run(() -> apply(() -> {
+            removeEntry(id);
+            addEntry(new Entry(id, beerName, normalize(beerName), beerStyle));
+        }));
+    }
+
+    public void remove(UUID id) {
+        AfterCommit.run(() -> apply(() -> removeEntry(id)));
+    }
+
+    /**
+     * Rebuilds a loaded index from the table. The read runs outside the lock, so searches carry on meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${beer.name-index.refresh-interval-ms:60000}")
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            if (!loaded || changesDuringReload != null) {
+                return;
+            }
+
+            changesDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<BeerNameEntry> nameEntries = null;
+
+        try {
+            nameEntries = beerRepository.findAllNameEntries();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // a failed read keeps the current index
+                if (nameEntries != null) {
+                    entries = new HashMap<>();
+                    postings = new HashMap<>();
+                    nameEntries.forEach(this::addNameEntry);
+                    changesDuringReload.forEach(Runnable::run);
+                }
+            } finally {
+                changesDuringReload = null;
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.run();
+
+                if (changesDuringReload != null) {
+                    changesDuringReload.add(change);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Set<UUID> candidates(String key) {
+        if (key.length() < GRAM_LENGTH) {
+            return entries.keySet();
+        }
+
+        Set<UUID> smallest = null;
+
+        for (String gram : grams(key)) {
+            Set<UUID> ids = postings.get(gram);
+
+            if (ids == null) {
+                return Set.of();
+            }
+
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+
+        return smallest;
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                List<BeerNameEntry> nameEntries = beerRepository.findAllNameEntries();
+
+                nameEntries.forEach(this::addNameEntry);
+                loaded = true;
+
+                log.debug("Beer name index loaded with " + nameEntries.size() + " beers");
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addNameEntry(BeerNameEntry nameEntry) {
+        addEntry(new Entry(nameEntry.id(), nameEntry.beerName(), normalize(nameEntry.beerName()),
+                nameEntry.beerStyle()));
+    }
+
+    private void addEntry(Entry entry) {
+        entries.put(entry.id(), entry);
+
+        for (String gram : grams(entry.key())) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(entry.id());
+        }
+    }
+
+    private void removeEntry(UUID id) {
+        Entry entry = entries.remove(id);
+
+        if (entry == null) {
+            return;
+        }
+
+        for (String gram : grams(entry.key())) {
+            Set<UUID> ids = postings.get(gram);
+
+            if (ids != null) {
+                ids.remove(id);
+
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String key) {
+        Set<String> grams = new HashSet<>();
+
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            grams.add(key.substring(i, i + GRAM_LENGTH));
+        }
+
+        return grams;
+    }
+
+    // LIKE ... IgnoreCase compares upper(column) with upper(term)
+    private static String normalize(String value) {
+        return value == null ? "" : value.toUpperCase(Locale.ROOT);
+    }
+
+    private record Entry(UUID id, String name, String key, BeerStyle beerStyle) {
+    }
+}
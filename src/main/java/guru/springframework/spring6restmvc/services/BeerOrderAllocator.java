@@ -0,0 +1,167 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.config.CacheConfig;
+import guru.springframework.spring6restmvc.repositories.BeerOrderLineRepository;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.OpenOrderLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Allocates stock to open order lines, those with {@code quantity_allocated < order_quantity}. Open lines are grouped
+ * by beer and every beer is allocated in one pass: its lines are served oldest {@code created_date} first, each in
+ * full before the next one gets anything, until the quantity on hand runs out.
+ * <p>
+ * A pass is a handful of set-based statements in one transaction rather than a lock per line: one UPDATE for all
+ * lines filled from nothing, one each for the at most two lines that already had or only get part of their
+ * quantity, and one guarded UPDATE taking the total off the beer. Each is guarded by what was read, so when a line
+ * or the stock changed in between, that beer's pass rolls back and is retried on the next run. Each pass commits in a
+ * transaction of its own, so a skipped pass never marks a caller's transaction rollback-only.
+ * <p>
+ * Stock sold through {@link InventoryWriteBehind} but not yet written is not there to allocate: a run flushes it
+ * first, and anything sold after that flush is still taken off what the row holds.
+ */
+@Slf4j
+@Component
+public class BeerOrderAllocator {
+
+    // beers whose open lines are read in one query, and lines per UPDATE; both keep IN lists at a sane size
+    static final int BEERS_PER_READ = 500;
+    static final int LINES_PER_UPDATE = 1000;
+
+    private final BeerOrderLineRepository beerOrderLineRepository;
+    private final BeerRepository beerRepository;
+    private final InventoryWriteBehind inventoryWriteBehind;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache beerCache;
+    private final boolean enabled;
+
+    public BeerOrderAllocator(BeerOrderLineRepository beerOrderLineRepository, BeerRepository beerRepository,
+                              InventoryWriteBehind inventoryWriteBehind, PlatformTransactionManager transactionManager,
+                              CacheManager cacheManager,
+                              @Value("${beer.order.allocation.enabled:false}") boolean enabled) {
+        this.beerOrderLineRepository = beerOrderLineRepository;
+        this.beerRepository = beerRepository;
+        this.inventoryWriteBehind = inventoryWriteBehind;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.beerCache = cacheManager.getCache(CacheConfig.BEER_CACHE);
+        this.enabled = enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${beer.order.allocation.interval-ms:1000}")
+    public void allocateOnSchedule() {
+        if (enabled) {
+            allocate();
+        }
+    }
+
+    /**
+     * Runs one pass for every beer that has both open lines and stock. Returns the number of units allocated.
+     */
+    public long allocate() {
+        inventoryWriteBehind.flush();
+
+        List<UUID> beerIds = beerOrderLineRepository.findBeerIdsWithOpenLines();
+        long allocated = 0;
+
+        for (int from = 0; from < beerIds.size(); from += BEERS_PER_READ) {
+            List<UUID> beerIdChunk = beerIds.subList(from, Math.min(from + BEERS_PER_READ, beerIds.size()));
+
+            // grouping keeps the oldest-first order of the query within each beer
+            Map<UUID, List<OpenOrderLine>> linesByBeer = beerOrderLineRepository.findOpenLinesByBeerIdIn(beerIdChunk)
+                    .stream()
+                    .collect(Collectors.groupingBy(OpenOrderLine::beerId, LinkedHashMap::new, Collectors.toList()));
+
+            for (Map.Entry<UUID, List<OpenOrderLine>> beerLines : linesByBeer.entrySet()) {
+                allocated += allocateBeer(beerLines.getKey(), beerLines.getValue());
+            }
+        }
+
+        if (allocated > 0) {
+            log.debug("Allocated {} units across {} beers", allocated, beerIds.size());
+        }
+
+        return allocated;
+    }
+
+    private int allocateBeer(UUID beerId, List<OpenOrderLine> lines) {
+        // pending restocks cannot be taken from the row yet, pending sales must not be
+        long pendingSales = Math.min(inventoryWriteBehind.pending(beerId), 0);
+        int onHand = (int) Math.max(lines.getFirst().quantityOnHand() + pendingSales, 0);
+        int available = onHand;
+        List<UUID> filledFromNothing = new ArrayList<>();
+        Map<OpenOrderLine, Integer> toppedUp = new LinkedHashMap<>();
+
+        for (OpenOrderLine line : lines) {
+            if (available == 0) {
+                break;
+            }
+
+            int quantity = Math.min(line.quantityOpen(), available);
+            available -= quantity;
+
+            if (line.quantityAllocated() == 0 && quantity == line.quantityOpen()) {
+                filledFromNothing.add(line.id());
+            } else {
+                toppedUp.put(line, quantity);
+            }
+        }
+
+        int total = onHand - available;
+
+        if (total == 0) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < filledFromNothing.size(); from += LINES_PER_UPDATE) {
+                    List<UUID> ids = filledFromNothing.subList(from,
+                            Math.min(from + LINES_PER_UPDATE, filledFromNothing.size()));
+
+                    if (beerOrderLineRepository.allocateInFull(ids, now) != ids.size()) {
+                        throw new OptimisticLockingFailureException("Order lines of beer " + beerId + " changed");
+                    }
+                }
+
+                toppedUp.forEach((line, quantity) -> {
+                    if (beerOrderLineRepository.addToQuantityAllocated(line.id(), line.quantityAllocated(), quantity,
+                            now) == 0) {
+                        throw new OptimisticLockingFailureException("Order line " + line.id() + " changed");
+                    }
+                });
+
+                if (beerRepository.adjustQuantityOnHand(beerId, -total, now.toLocalDateTime()) == 0) {
+                    throw new OptimisticLockingFailureException("Stock of beer " + beerId + " changed");
+                }
+            });
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Allocation skipped until the next run: {}", e.getMessage());
+            return 0;
+        }
+
+        beerCache.evict(beerId);
+
+        return total;
+    }
+}
@@ -0,0 +1,17 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BeerOrderService {
+
+    Optional<BeerOrderDTO> getBeerOrderById(UUID id);
+
+    /**
+     * Saves the order with all of its lines, or nothing; empty when the customer or any of the ordered beers does
+     * not exist.
+     */
+    Optional<BeerOrderDTO> placeOrder(BeerOrderDTO beerOrder);
+}
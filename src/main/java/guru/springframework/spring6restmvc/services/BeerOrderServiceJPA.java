@@ -0,0 +1,81 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.BeerOrder;
+import guru.springframework.spring6restmvc.entities.BeerOrderLine;
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.mappers.BeerOrderMapper;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
+import guru.springframework.spring6restmvc.repositories.BeerOrderRepository;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class BeerOrderServiceJPA implements BeerOrderService {
+    private final BeerOrderRepository beerOrderRepository;
+    private final CustomerRepository customerRepository;
+    private final BeerRepository beerRepository;
+    private final BeerOrderMapper beerOrderMapper;
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<BeerOrderDTO> getBeerOrderById(UUID id) {
+        return beerOrderRepository.findWithDetailsById(id).map(beerOrderMapper::beerOrderToBeerOrderDto);
+    }
+
+    @Transactional
+    @Override
+    public Optional<BeerOrderDTO> placeOrder(BeerOrderDTO beerOrder) {
+        Optional<Customer> customer = customerRepository.findById(beerOrder.getCustomerId());
+
+        if (customer.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Set<UUID> beerIds = beerOrder.getBeerOrderLines().stream()
+                .map(BeerOrderLineDTO::getBeerId)
+                .collect(Collectors.toSet());
+
+        // every referenced beer in one query, however many lines point at it
+        Map<UUID, Beer> beers = beerRepository.findAllById(beerIds).stream()
+                .collect(Collectors.toMap(Beer::getId, Function.identity()));
+
+        if (beers.size() != beerIds.size()) {
+            return Optional.empty();
+        }
+
+        BeerOrder order = BeerOrder.builder()
+                .customerRef(beerOrder.getCustomerRef())
+                .customer(customer.get())
+                .build();
+
+        Set<BeerOrderLine> lines = new HashSet<>();
+
+        for (BeerOrderLineDTO line : beerOrder.getBeerOrderLines()) {
+            lines.add(BeerOrderLine.builder()
+                    .beerOrder(order)
+                    .beer(beers.get(line.getBeerId()))
+                    .orderQuantity(line.getOrderQuantity())
+                    .quantityAllocated(0)
+                    .build());
+        }
+
+        order.setBeerOrderLines(lines);
+
+        // the lines cascade from the order and go out as JDBC batches (hibernate.jdbc.batch_size) on flush
+        return Optional.of(beerOrderMapper.beerOrderToBeerOrderDto(beerOrderRepository.saveAndFlush(order)));
+    }
+}
@@ -1,23 +1,89 @@
 package guru.springframework.spring6restmvc.services;
 
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerSortOrder;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface BeerService {
 
-    Page<BeerDTO> listBeers(String beerName, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize);
+    /**
+     * Beers whose name contains {@code beerName}, whose style is any of {@code beerStyles} and whose price lies
+     * within the inclusive bounds. Every filter is optional; a null sort means {@link BeerSortOrder#DEFAULT}.
+     */
+    Page<BeerDTO> listBeers(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice, BigDecimal maxPrice,
+                            Boolean showInventory, BeerSortOrder sort, Integer pageNumber, Integer pageSize);
+
+    Slice<BeerDTO> listBeersSlice(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice, BigDecimal maxPrice,
+                                  Boolean showInventory, BeerSortOrder sort, Integer pageNumber, Integer pageSize);
+
+    KeysetPage<BeerDTO> listBeersAfter(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice,
+                                       BigDecimal maxPrice, Boolean showInventory, KeysetCursor after,
+                                       Integer pageSize);
+
+    /**
+     * Number of beers per style, optionally only those whose name contains the term. Every style is present,
+     * styles without beers with a count of zero.
+     */
+    Map<BeerStyle, Long> countBeersByStyle(String beerName);
+
+    /**
+     * Hands every beer in the catalog to the consumer, one at a time and in no particular order.
+     */
+    void exportBeers(Consumer<BeerDTO> consumer);
 
     Optional<BeerDTO> getBeerById(UUID id);
 
+    /**
+     * The beer currently carrying the upc, checked against the beer itself so a lookup never answers with a beer
+     * whose upc has since changed.
+     */
+    Optional<BeerDTO> getBeerByUpc(String upc);
+
+    /**
+     * Inventory adjustments accepted for the beer but not yet written to it, already included in what
+     * {@link #getBeerById} returns.
+     */
+    long getPendingInventory(UUID id);
+
     BeerDTO saveNewBeer(BeerDTO beer);
 
+    /**
+     * Saves all beers in one transaction and returns their ids in the order the beers were given.
+     */
+    List<UUID> saveNewBeers(List<BeerDTO> beers);
+
     Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beer);
 
+    /**
+     * Overwrites the beer only while it is still at {@code version}. Returns the new version, or empty when there
+     * is no such beer; throws {@link org.springframework.dao.OptimisticLockingFailureException} when the beer has
+     * moved on to another version.
+     */
+    Optional<Integer> updateBeerByIdIfMatch(UUID beerId, Integer version, BeerDTO beer);
+
     Boolean deleteById(UUID beerId);
 
+    /**
+     * Adds {@code delta} to quantity on hand atomically. Returns false when there is no such beer; throws
+     * {@link InsufficientInventoryException} when the result would be negative.
+     */
+    boolean adjustInventory(UUID beerId, int delta);
+
     Optional<BeerDTO> patchBeerById(UUID beerId, BeerDTO beer);
+
+    /**
+     * Conditional counterpart of {@link #patchBeerById}, with the same results as {@link #updateBeerByIdIfMatch}.
+     */
+    Optional<Integer> patchBeerByIdIfMatch(UUID beerId, Integer version, BeerDTO beer);
 }
@@ -1,19 +1,30 @@
 package guru.springframework.spring6restmvc.services;
 
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerSortOrder;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -53,7 +64,7 @@ public class BeerServiceImpl implements BeerService {
                 .version(1)
                 .beerName("Sunshine City")
                 .beerStyle(BeerStyle.IPA)
-                .upc("12356")
+                .upc("12356333")
                 .price(new BigDecimal("13.99"))
                 .quantityOnHand(144)
                 .createdDate(LocalDateTime.now())
@@ -66,10 +77,48 @@ public class BeerServiceImpl implements BeerService {
     }
 
     @Override
-    public Page<BeerDTO> listBeers(String beerName, BeerStyle beerStyle, Boolean showInventory, Integer pageNumber, Integer pageSize) {
+    public Page<BeerDTO> listBeers(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice, BigDecimal maxPrice,
+                                   Boolean showInventory, BeerSortOrder sort, Integer pageNumber, Integer pageSize) {
         return new PageImpl<>(new ArrayList<>(beerMap.values()));
     }
 
+    @Override
+    public Slice<BeerDTO> listBeersSlice(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice,
+                                         BigDecimal maxPrice, Boolean showInventory, BeerSortOrder sort,
+                                         Integer pageNumber, Integer pageSize) {
+        return new SliceImpl<>(new ArrayList<>(beerMap.values()));
+    }
+
+    @Override
+    public KeysetPage<BeerDTO> listBeersAfter(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice,
+                                              BigDecimal maxPrice, Boolean showInventory, KeysetCursor after,
+                                              Integer pageSize) {
+        return KeysetPage.<BeerDTO>builder()
+                .content(new ArrayList<>(beerMap.values()))
+                .build();
+    }
+
+    @Override
+    public Map<BeerStyle, Long> countBeersByStyle(String beerName) {
+        Map<BeerStyle, Long> counts = new EnumMap<>(BeerStyle.class);
+
+        for (BeerStyle beerStyle : BeerStyle.values()) {
+            counts.put(beerStyle, 0L);
+        }
+
+        beerMap.values().stream()
+                .filter(beer -> !StringUtils.hasText(beerName)
+                        || beer.getBeerName().toUpperCase().contains(beerName.toUpperCase()))
+                .forEach(beer -> counts.merge(beer.getBeerStyle(), 1L, Long::sum));
+
+        return counts;
+    }
+
+    @Override
+    public void exportBeers(Consumer<BeerDTO> consumer) {
+        beerMap.values().forEach(consumer);
+    }
+
     @Override
     public Optional<BeerDTO> getBeerById(UUID id) {
 
@@ -78,6 +127,18 @@ public class BeerServiceImpl implements BeerService {
         return Optional.of(beerMap.get(id));
     }
 
+    @Override
+    public Optional<BeerDTO> getBeerByUpc(String upc) {
+        return beerMap.values().stream()
+                .filter(beer -> upc.equals(beer.getUpc()))
+                .findFirst();
+    }
+
+    @Override
+    public long getPendingInventory(UUID id) {
+        return 0;
+    }
+
     @Override
     public BeerDTO saveNewBeer(BeerDTO beer) {
 
@@ -97,6 +158,14 @@ public class BeerServiceImpl implements BeerService {
         return savedBeer;
     }
 
+    @Override
+    public List<UUID> saveNewBeers(List<BeerDTO> beers) {
+        return beers.stream()
+                .map(this::saveNewBeer)
+                .map(BeerDTO::getId)
+                .toList();
+    }
+
     @Override
     public Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beer) {
         BeerDTO existing = beerMap.get(beerId);
@@ -110,6 +179,40 @@ public class BeerServiceImpl implements BeerService {
         return Optional.of(existing);
     }
 
+    @Override
+    public Optional<Integer> updateBeerByIdIfMatch(UUID beerId, Integer version, BeerDTO beer) {
+        BeerDTO existing = beerMap.get(beerId);
+
+        if (existing == null) {
+            return Optional.empty();
+        }
+
+        checkVersion(existing, version);
+        updateBeerById(beerId, beer);
+        existing.setVersion(version + 1);
+
+        return Optional.of(existing.getVersion());
+    }
+
+    @Override
+    public synchronized boolean adjustInventory(UUID beerId, int delta) {
+        BeerDTO existing = beerMap.get(beerId);
+
+        if (existing == null) {
+            return false;
+        }
+
+        int quantityOnHand = existing.getQuantityOnHand() == null ? 0 : existing.getQuantityOnHand();
+
+        if (quantityOnHand + delta < 0) {
+            throw new InsufficientInventoryException(beerId, delta);
+        }
+
+        existing.setQuantityOnHand(quantityOnHand + delta);
+
+        return true;
+    }
+
     @Override
     public Boolean deleteById(UUID beerId) {
         beerMap.remove(beerId);
@@ -143,4 +246,25 @@ public class BeerServiceImpl implements BeerService {
 
         return Optional.of(existing);
     }
+
+    @Override
+    public Optional<Integer> patchBeerByIdIfMatch(UUID beerId, Integer version, BeerDTO beer) {
+        BeerDTO existing = beerMap.get(beerId);
+
+        if (existing == null) {
+            return Optional.empty();
+        }
+
+        checkVersion(existing, version);
+        patchBeerById(beerId, beer);
+        existing.setVersion(version + 1);
+
+        return Optional.of(existing.getVersion());
+    }
+
+    private static void checkVersion(BeerDTO existing, Integer version) {
+        if (!Objects.equals(existing.getVersion(), version)) {
+            throw new OptimisticLockingFailureException("Beer " + existing.getId() + " is no longer at version " + version);
+        }
+    }
 }
@@ -1,22 +1,49 @@
 package guru.springframework.spring6restmvc.services;
 
+import guru.springframework.spring6restmvc.config.CacheConfig;
 import guru.springframework.spring6restmvc.entities.Beer;
 import guru.springframework.spring6restmvc.mappers.BeerMapper;
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerSortOrder;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.BeerSpecifications;
+import guru.springframework.spring6restmvc.repositories.BeerStyleCount;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Primary
@@ -24,38 +51,88 @@ import java.util.concurrent.atomic.AtomicReference;
 public class BeerServiceJPA implements BeerService {
     private final BeerRepository beerRepository;
     private final BeerMapper beerMapper;
+    private final BeerNameIndex beerNameIndex;
+    private final BeerUpcIndex beerUpcIndex;
+    private final EntityManager entityManager;
+    private final InventoryWriteBehind inventoryWriteBehind;
 
     private static final int DEFAULT_PAGE = 0;
     private static final int DEFAULT_PAGE_SIZE = 25;
+    private static final int MAX_PAGE_SIZE = 1000;
 
-    @Override
-    public Page<BeerDTO> listBeers(String beerName, BeerStyle beerStyle, Boolean showInventory,
-                                   Integer pageNumber, Integer pageSize) {
+    // matches spring.jpa.properties.hibernate.jdbc.batch_size, so every flush sends whole JDBC batches
+    private static final int BULK_FLUSH_SIZE = 50;
 
-        PageRequest pageRequest = buildPageRequest(pageNumber, pageSize);
+    /**
+     * Read-only listing: rows are projected straight into {@link BeerDTO}, so nothing lands in the persistence
+     * context and there is nothing to snapshot or flush. With {@code showInventory=false} the projection leaves
+     * quantity on hand out of the select altogether. Name searches without a price range are answered by the
+     * in-memory name index, which keeps its entries in name order and so only serves the default sort; everything
+     * else becomes one query over the matching {@link BeerSpecifications}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BeerDTO> listBeers(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice,
+                                   BigDecimal maxPrice, Boolean showInventory, BeerSortOrder sort, Integer pageNumber,
+                                   Integer pageSize) {
 
-        Page<Beer> beerPage;
+        PageRequest pageRequest = buildPageRequest(pageNumber, pageSize, sort);
+        boolean hideInventory = showInventory != null && !showInventory;
 
-        if (StringUtils.hasText(beerName) && beerStyle == null) {
-            beerPage = listBeersByName(beerName, pageRequest);
-        } else if (!StringUtils.hasText(beerName) && beerStyle != null) {
-            beerPage = listBeersByStyle(beerStyle, pageRequest);
-        } else if (StringUtils.hasText(beerName) && beerStyle != null) {
-            beerPage = listBeersByNameAndStyle(beerName, beerStyle, pageRequest);
-        } else {
-            beerPage = beerRepository.findAll(pageRequest);
+        if (StringUtils.hasText(beerName) && minPrice == null && maxPrice == null
+                && (sort == null || BeerSortOrder.DEFAULT.equals(sort))
+                && beerNameIndex.canServe(beerName)) {
+            return listBeersFromNameIndex(beerName, beerStyles, hideInventory, pageRequest)
+                    .map(inventoryWriteBehind::merge);
         }
 
-        if (showInventory != null && !showInventory) {
-            beerPage.forEach(beer -> beer.setQuantityOnHand(null));
+        return beerRepository.findBeerDtos(BeerSpecifications.matching(beerName, beerStyles, minPrice, maxPrice),
+                hideInventory, pageRequest).map(inventoryWriteBehind::merge);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BeerDTO> listBeersSlice(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice,
+                                         BigDecimal maxPrice, Boolean showInventory, BeerSortOrder sort,
+                                         Integer pageNumber, Integer pageSize) {
+
+        return beerRepository.findBeerDtoSlice(BeerSpecifications.matching(beerName, beerStyles, minPrice, maxPrice),
+                showInventory != null && !showInventory, buildPageRequest(pageNumber, pageSize, sort))
+                .map(inventoryWriteBehind::merge);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<BeerDTO> listBeersAfter(String beerName, List<BeerStyle> beerStyles, BigDecimal minPrice,
+                                              BigDecimal maxPrice, Boolean showInventory, KeysetCursor after,
+                                              Integer pageSize) {
+
+        KeysetCursor cursor = after != null ? after : KeysetCursor.FIRST;
+        int querySize = resolvePageSize(pageSize);
+
+        // one extra row tells us whether another page follows, without a COUNT
+        List<BeerDTO> beers = beerRepository.findBeerDtosAfter(
+                BeerSpecifications.matching(beerName, beerStyles, minPrice, maxPrice),
+                showInventory != null && !showInventory, cursor, querySize + 1);
+
+        boolean hasNext = beers.size() > querySize;
+        List<BeerDTO> content = hasNext ? beers.subList(0, querySize) : beers;
+
+        String nextCursor = null;
+
+        if (hasNext) {
+            BeerDTO last = content.getLast();
+            nextCursor = new KeysetCursor(last.getBeerName(), last.getId()).toToken();
         }
 
-        return beerPage.map(beerMapper::beerToBeerDto);
+        return KeysetPage.<BeerDTO>builder()
+                .content(content.stream().map(inventoryWriteBehind::merge).toList())
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    public PageRequest buildPageRequest(Integer pageNumber, Integer pageSize) {
+    public PageRequest buildPageRequest(Integer pageNumber, Integer pageSize, BeerSortOrder sortOrder) {
         int queryPageNumber;
-        int queryPageSize;
 
         if (pageNumber != null && pageNumber > 0) {
             queryPageNumber = pageNumber - 1;
@@ -63,45 +140,168 @@ public class BeerServiceJPA implements BeerService {
             queryPageNumber = DEFAULT_PAGE;
         }
 
-        if (pageSize == null) {
-            queryPageSize = DEFAULT_PAGE_SIZE;
-        } else {
-            if (pageSize > 1000) {
-                queryPageSize = 1000;
-            } else {
-                queryPageSize = pageSize;
-            }
-        }
+        BeerSortOrder order = sortOrder != null ? sortOrder : BeerSortOrder.DEFAULT;
+
+        // all columns run in one direction so the index can be read backwards for a descending sort
+        Sort sort = Sort.by(order.descending() ? Sort.Direction.DESC : Sort.Direction.ASC,
+                order.properties().toArray(new String[0]));
 
-        Sort sort = Sort.by(Sort.Order.asc("beerName"));
+        return PageRequest.of(queryPageNumber, resolvePageSize(pageSize), sort);
+    }
+
+    private int resolvePageSize(Integer pageSize) {
+        // zero or negative sizes fall back to the default rather than failing further down
+        if (pageSize == null || pageSize < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
 
-        return PageRequest.of(queryPageNumber, queryPageSize, sort);
+        return Math.min(pageSize, MAX_PAGE_SIZE);
     }
 
-    private Page<Beer> listBeersByNameAndStyle(String beerName, BeerStyle beerStyle, Pageable pageable) {
-        return beerRepository.findAllByBeerNameIsLikeIgnoreCaseAndBeerStyle("%" + beerName + "%", beerStyle, pageable);
+    /**
+     * Resolves the matching ids from the in-memory name index and loads only the requested page by primary key.
+     */
+    private Page<BeerDTO> listBeersFromNameIndex(String beerName, List<BeerStyle> beerStyles, boolean hideInventory,
+                                                 PageRequest pageRequest) {
+        List<UUID> matchingIds = beerNameIndex.search(beerName, beerStyles);
+
+        int from = (int) Math.min(pageRequest.getOffset(), matchingIds.size());
+        int to = Math.min(from + pageRequest.getPageSize(), matchingIds.size());
+        List<UUID> pageIds = matchingIds.subList(from, to);
+
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageRequest, matchingIds.size());
+        }
+
+        List<BeerDTO> pageBeers = hideInventory
+                ? beerRepository.findBeerDtosWithoutInventoryByIdIn(pageIds)
+                : beerRepository.findBeerDtosByIdIn(pageIds);
+
+        Map<UUID, BeerDTO> beersById = pageBeers.stream()
+                .collect(Collectors.toMap(BeerDTO::getId, Function.identity()));
+
+        List<BeerDTO> beers = pageIds.stream()
+                .map(beersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new PageImpl<>(beers, pageRequest, matchingIds.size());
     }
 
-    public Page<Beer> listBeersByName(String beerName, Pageable pageable) {
-        return beerRepository.findAllByBeerNameIsLikeIgnoreCase("%" + beerName + "%", pageable);
+    /**
+     * One GROUP BY over the beer table, cached per (upper-cased) name term until the next write to any beer.
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.BEER_STYLE_FACET_CACHE,
+            key = "#beerName == null ? '' : #beerName.toUpperCase()")
+    public Map<BeerStyle, Long> countBeersByStyle(String beerName) {
+        List<BeerStyleCount> styleCounts = StringUtils.hasText(beerName)
+                ? beerRepository.findStyleCountsByBeerNameLike("%" + beerName + "%")
+                : beerRepository.findStyleCounts();
+
+        Map<BeerStyle, Long> counts = new EnumMap<>(BeerStyle.class);
+
+        for (BeerStyle beerStyle : BeerStyle.values()) {
+            counts.put(beerStyle, 0L);
+        }
+
+        styleCounts.forEach(styleCount -> counts.put(styleCount.getBeerStyle(), styleCount.getBeerCount()));
+
+        return Collections.unmodifiableMap(counts);
     }
 
-    public Page<Beer> listBeersByStyle(BeerStyle beerStyle, Pageable pageable) {
-        return beerRepository.findAllByBeerStyle(beerStyle, pageable);
+    /**
+     * Streams the catalog with a JDBC fetch size and detaches each beer once it has been mapped, so the persistence
+     * context - and the heap - stay the same size however many beers there are. Unflushed inventory is added like on
+     * every other read.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBeers(Consumer<BeerDTO> consumer) {
+        try (Stream<Beer> beers = beerRepository.streamAllBy()) {
+            beers.forEach(beer -> {
+                consumer.accept(inventoryWriteBehind.merge(beerMapper.beerToBeerDto(beer)));
+                entityManager.detach(beer);
+            });
+        }
     }
 
     @Override
     public Optional<BeerDTO> getBeerById(UUID id) {
-        return Optional.ofNullable(beerMapper.beerToBeerDto(beerRepository.findById(id)
-                .orElse(null)));
+        return beerRepository.findBeerDtoById(id).map(inventoryWriteBehind::merge);
     }
 
+    /**
+     * Resolves the upc through the {@link BeerUpcIndex} and reads the beer it points to. An entry the index loaded on a
+     * miss is only kept current by writes on this instance, so when the beer is gone or no longer carries the upc the
+     * entry is evicted and the upc looked up in the database once more.
+     */
     @Override
+    public Optional<BeerDTO> getBeerByUpc(String upc) {
+        Optional<UUID> beerId = beerUpcIndex.resolve(upc);
+        Optional<BeerDTO> beer = beerId.flatMap(id -> getBeerWithUpc(id, upc));
+
+        if (beer.isPresent() || beerId.isEmpty()) {
+            return beer;
+        }
+
+        beerUpcIndex.evict(upc, beerId.get());
+
+        return beerUpcIndex.resolve(upc).flatMap(id -> getBeerWithUpc(id, upc));
+    }
+
+    private Optional<BeerDTO> getBeerWithUpc(UUID id, String upc) {
+        return getBeerById(id).filter(beer -> upc.equals(beer.getUpc()));
+    }
+
+    @Override
+    public long getPendingInventory(UUID id) {
+        return inventoryWriteBehind.pending(id);
+    }
+
+    @Override
+    @Caching(put = @CachePut(cacheNames = CacheConfig.BEER_CACHE, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CacheConfig.BEER_STYLE_FACET_CACHE, allEntries = true))
     public BeerDTO saveNewBeer(BeerDTO beer) {
-        return beerMapper.beerToBeerDto(beerRepository.save(beerMapper.beerDtoToBeer(beer)));
+        Beer savedBeer = beerRepository.save(beerMapper.beerDtoToBeer(beer));
+        beerNameIndex.put(savedBeer.getId(), savedBeer.getBeerName(), savedBeer.getBeerStyle());
+        beerUpcIndex.put(savedBeer.getId(), savedBeer.getUpc());
+
+        return beerMapper.beerToBeerDto(savedBeer);
     }
 
+    /**
+     * Inserts go out as JDBC batches - ids are generated in the JVM, so Hibernate never needs a round trip per row.
+     * The persistence context is flushed and cleared every {@link #BULK_FLUSH_SIZE} beers to keep it small.
+     */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BEER_STYLE_FACET_CACHE, allEntries = true)
+    public List<UUID> saveNewBeers(List<BeerDTO> beers) {
+        List<UUID> ids = new ArrayList<>(beers.size());
+
+        for (int i = 0; i < beers.size(); i++) {
+            Beer beer = beerMapper.beerDtoToBeer(beers.get(i));
+            beer.setId(null);
+            beer.setVersion(null);
+
+            entityManager.persist(beer);
+            beerNameIndex.put(beer.getId(), beer.getBeerName(), beer.getBeerStyle());
+            beerUpcIndex.put(beer.getId(), beer.getUpc());
+            ids.add(beer.getId());
+
+            if ((i + 1) % BULK_FLUSH_SIZE == 0) {
+                beerRepository.flush();
+                entityManager.clear();
+            }
+        }
+
+        return ids;
+    }
+
+    @Override
+    @Caching(put = @CachePut(cacheNames = CacheConfig.BEER_CACHE, key = "#beerId", unless = "#result == null"),
+            evict = @CacheEvict(cacheNames = CacheConfig.BEER_STYLE_FACET_CACHE, allEntries = true))
     public Optional<BeerDTO> updateBeerById(UUID beerId, BeerDTO beer) {
         AtomicReference<Optional<BeerDTO>> atomicReference = new AtomicReference<>();
 
@@ -111,8 +311,10 @@ public class BeerServiceJPA implements BeerService {
             foundBeer.setUpc(beer.getUpc());
             foundBeer.setPrice(beer.getPrice());
             foundBeer.setQuantityOnHand(beer.getQuantityOnHand());
-            atomicReference.set(Optional.of(beerMapper
-                    .beerToBeerDto(beerRepository.save(foundBeer))));
+            Beer savedBeer = beerRepository.save(foundBeer);
+            beerNameIndex.put(savedBeer.getId(), savedBeer.getBeerName(), savedBeer.getBeerStyle());
+            beerUpcIndex.put(savedBeer.getId(), savedBeer.getUpc());
+            atomicReference.set(Optional.of(beerMapper.beerToBeerDto(savedBeer)));
         }, () -> {
             atomicReference.set(Optional.empty());
         });
@@ -120,16 +322,85 @@ public class BeerServiceJPA implements BeerService {
         return atomicReference.get();
     }
 
+    /**
+     * One guarded UPDATE instead of a SELECT plus an UPDATE. The new state is never read back, so the cached beer is
+     * evicted rather than replaced.
+     */
     @Override
-    public Boolean deleteById(UUID beerId) {
-        if (beerRepository.existsById(beerId)) {
-            beerRepository.deleteById(beerId);
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BEER_CACHE, key = "#beerId"),
+            @CacheEvict(cacheNames = CacheConfig.BEER_STYLE_FACET_CACHE, allEntries = true)
+    })
+    public Optional<Integer> updateBeerByIdIfMatch(UUID beerId, Integer version, BeerDTO beer) {
+        int updated = beerRepository.updateIfVersionMatches(beerId, version, beer.getBeerName(), beer.getBeerStyle(),
+                beer.getUpc(), beer.getQuantityOnHand(), beer.getPrice(), LocalDateTime.now());
+
+        if (updated == 0) {
+            return versionMismatch(beerId);
+        }
+
+        beerNameIndex.put(beerId, beer.getBeerName(), beer.getBeerStyle());
+        beerUpcIndex.put(beerId, beer.getUpc());
+
+        return Optional.of(version + 1);
+    }
+
+    /**
+     * The version moves with every adjustment, so ETags and If-Match writers see stock changes too. With write-behind
+     * enabled the delta only goes to {@link InventoryWriteBehind} and is written by its next flush.
+     */
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BEER_CACHE, key = "#beerId", condition = "!@inventoryWriteBehind.enabled")
+    public boolean adjustInventory(UUID beerId, int delta) {
+        if (inventoryWriteBehind.isEnabled()) {
+            return inventoryWriteBehind.add(beerId, delta);
+        }
+
+        if (beerRepository.adjustQuantityOnHand(beerId, delta, LocalDateTime.now()) > 0) {
             return true;
         }
+
+        if (beerRepository.existsById(beerId)) {
+            throw new InsufficientInventoryException(beerId, delta);
+        }
+
         return false;
     }
 
+    /**
+     * Two statements, the category links and then the beer, with nothing read first. Order lines are order history
+     * and are never removed here: a beer that has been ordered fails the foreign key, nothing is deleted and the
+     * caller gets an {@link EntityInUseException}.
+     */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BEER_CACHE, key = "#beerId"),
+            @CacheEvict(cacheNames = CacheConfig.BEER_STYLE_FACET_CACHE, allEntries = true)
+    })
+    public Boolean deleteById(UUID beerId) {
+        int deleted;
+
+        try {
+            deleted = beerRepository.deleteBeerById(beerId);
+        } catch (DataIntegrityViolationException e) {
+            throw new EntityInUseException("Beer", beerId, e);
+        }
+
+        if (deleted == 0) {
+            return false;
+        }
+
+        beerNameIndex.remove(beerId);
+        beerUpcIndex.remove(beerId);
+        return true;
+    }
+
+    @Override
+    @Caching(put = @CachePut(cacheNames = CacheConfig.BEER_CACHE, key = "#beerId", unless = "#result == null"),
+            evict = @CacheEvict(cacheNames = CacheConfig.BEER_STYLE_FACET_CACHE, allEntries = true))
     public Optional<BeerDTO> patchBeerById(UUID beerId, BeerDTO beer) {
         AtomicReference<Optional<BeerDTO>> atomicReference = new AtomicReference<>();
 
@@ -146,12 +417,56 @@ public class BeerServiceJPA implements BeerService {
             if (beer.getPrice() != null) {
                 foundBeer.setPrice(beer.getPrice());
             }
-            atomicReference.set(Optional.of(beerMapper
-                    .beerToBeerDto(beerRepository.save(foundBeer))));
+            Beer savedBeer = beerRepository.save(foundBeer);
+            beerNameIndex.put(savedBeer.getId(), savedBeer.getBeerName(), savedBeer.getBeerStyle());
+            beerUpcIndex.put(savedBeer.getId(), savedBeer.getUpc());
+            atomicReference.set(Optional.of(beerMapper.beerToBeerDto(savedBeer)));
         }, () -> {
             atomicReference.set(Optional.empty());
         });
 
         return atomicReference.get();
     }
+
+    /**
+     * Like {@link #updateBeerByIdIfMatch}; only a patch that renames or restyles the beer reads the row back, for
+     * the name index.
+     */
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BEER_CACHE, key = "#beerId"),
+            @CacheEvict(cacheNames = CacheConfig.BEER_STYLE_FACET_CACHE, allEntries = true)
+    })
+    public Optional<Integer> patchBeerByIdIfMatch(UUID beerId, Integer version, BeerDTO beer) {
+        String beerName = StringUtils.hasText(beer.getBeerName()) ? beer.getBeerName() : null;
+        String upc = StringUtils.hasText(beer.getUpc()) ? beer.getUpc() : null;
+
+        int updated = beerRepository.patchIfVersionMatches(beerId, version, beerName, beer.getBeerStyle(), upc,
+                beer.getPrice(), LocalDateTime.now());
+
+        if (updated == 0) {
+            return versionMismatch(beerId);
+        }
+
+        if (beerName != null || beer.getBeerStyle() != null) {
+            beerRepository.findNameEntryById(beerId).ifPresent(entry ->
+                    beerNameIndex.put(entry.id(), entry.beerName(), entry.beerStyle()));
+        }
+
+        if (upc != null) {
+            beerUpcIndex.put(beerId, upc);
+        }
+
+        return Optional.of(version + 1);
+    }
+
+    // only reached when the guarded update matched nothing, so the extra query is off the happy path
+    private Optional<Integer> versionMismatch(UUID beerId) {
+        if (beerRepository.existsById(beerId)) {
+            throw new OptimisticLockingFailureException("Beer " + beerId + " is no longer at the expected version");
+        }
+
+        return Optional.empty();
+    }
 }
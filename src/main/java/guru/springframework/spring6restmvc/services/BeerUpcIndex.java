@@ -0,0 +1,96 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory UPC to beer id map for scanner lookups. Lookups that miss go to the unique upc index once and are
+ * remembered; the write paths of {@link BeerServiceJPA} keep entries current after their transactions commit. Writes
+ * made elsewhere, on another instance or straight against the database, leave entries stale until a reader finds the
+ * beer no longer matches and evicts them.
+ */
+@Component
+@RequiredArgsConstructor
+public class BeerUpcIndex {
+
+    private final BeerRepository beerRepository;
+
+    private final Map<String, UUID> idsByUpc = new ConcurrentHashMap<>();
+    private final Map<UUID, String> upcsById = new ConcurrentHashMap<>();
+    private long writes;
+
+    public Optional<UUID> resolve(String upc) {
+        UUID id = idsByUpc.get(upc);
+
+        if (id != null) {
+            return Optional.of(id);
+        }
+
+        long writesBeforeLoad = writeCount();
+        Optional<UUID> loadedId = beerRepository.findIdByUpc(upc);
+
+        // a write that committed while we were reading may already have moved or removed this upc
+        loadedId.ifPresent(beerId -> {
+            synchronized (this) {
+                if (writes == writesBeforeLoad) {
+                    putEntry(beerId, upc);
+                }
+            }
+        });
+
+        return loadedId;
+    }
+
+    public void put(UUID id, String upc) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                writes++;
+                removeEntry(id);
+                putEntry(id, upc);
+            }
+        });
+    }
+
+    /**
+     * Forgets the entry if it still maps the upc to {@code id}, for callers that found the beer no longer carries it.
+     */
+    public synchronized void evict(String upc, UUID id) {
+        if (idsByUpc.remove(upc, id)) {
+            upcsById.remove(id, upc);
+        }
+    }
+
+    public void remove(UUID id) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                writes++;
+                removeEntry(id);
+            }
+        });
+    }
+
+    private synchronized long writeCount() {
+        return writes;
+    }
+
+    private void putEntry(UUID id, String upc) {
+        if (upc != null) {
+            idsByUpc.put(upc, id);
+            upcsById.put(id, upc);
+        }
+    }
+
+    private void removeEntry(UUID id) {
+        String upc = upcsById.remove(id);
+
+        if (upc != null) {
+            idsByUpc.remove(upc, id);
+        }
+    }
+}
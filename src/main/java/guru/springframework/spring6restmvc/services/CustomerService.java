@@ -1,17 +1,29 @@
 package guru.springframework.spring6restmvc.services;
 
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
+import org.springframework.data.domain.Page;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface CustomerService {
 
-    List<CustomerDTO> listCustomers();
+    Page<CustomerDTO> listCustomers(Integer pageNumber, Integer pageSize);
+
+    KeysetPage<CustomerDTO> listCustomersAfter(KeysetCursor after, Integer pageSize);
+
+    /**
+     * Hands every customer to the consumer in turn, without collecting them into a list first.
+     */
+    void exportCustomers(Consumer<CustomerDTO> consumer);
 
     Optional<CustomerDTO> getCustomerById(UUID id);
 
+    Optional<Integer> getCustomerVersion(UUID id);
+
     CustomerDTO saveNewCustomer(CustomerDTO customer);
 
     Optional<CustomerDTO> updateCustomerById(UUID customerId, CustomerDTO customer);
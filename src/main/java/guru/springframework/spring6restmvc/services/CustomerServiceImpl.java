@@ -1,11 +1,16 @@
 package guru.springframework.spring6restmvc.services;
 
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 public class CustomerServiceImpl implements CustomerService {
@@ -45,8 +50,20 @@ public class CustomerServiceImpl implements CustomerService {
     }
 
     @Override
-    public List<CustomerDTO> listCustomers() {
-        return new ArrayList<>(customers.values());
+    public Page<CustomerDTO> listCustomers(Integer pageNumber, Integer pageSize) {
+        return new PageImpl<>(new ArrayList<>(customers.values()));
+    }
+
+    @Override
+    public KeysetPage<CustomerDTO> listCustomersAfter(KeysetCursor after, Integer pageSize) {
+        return KeysetPage.<CustomerDTO>builder()
+                .content(new ArrayList<>(customers.values()))
+                .build();
+    }
+
+    @Override
+    public void exportCustomers(Consumer<CustomerDTO> consumer) {
+        customers.values().forEach(consumer);
     }
 
     @Override
@@ -54,6 +71,13 @@ public class CustomerServiceImpl implements CustomerService {
         return Optional.of(customers.get(id));
     }
 
+    @Override
+    public Optional<Integer> getCustomerVersion(UUID id) {
+        return Optional.ofNullable(customers.get(id))
+                .map(CustomerDTO::getVersion)
+                .map(Integer::valueOf);
+    }
+
     @Override
     public CustomerDTO saveNewCustomer(CustomerDTO customer) {
         CustomerDTO savedCustomer = CustomerDTO.builder()
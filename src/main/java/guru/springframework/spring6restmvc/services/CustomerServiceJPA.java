@@ -1,18 +1,28 @@
 package guru.springframework.spring6restmvc.services;
 
+import guru.springframework.spring6restmvc.entities.Customer;
 import guru.springframework.spring6restmvc.mappers.CustomerMapper;
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Primary
@@ -20,14 +30,92 @@ import java.util.stream.Collectors;
 public class CustomerServiceJPA implements CustomerService {
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final EntityManager entityManager;
 
+    private static final int DEFAULT_PAGE = 0;
+    private static final int DEFAULT_PAGE_SIZE = 25;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CustomerDTO> listCustomers(Integer pageNumber, Integer pageSize) {
+        return customerRepository.findAllByOrderByNameAscIdAsc(buildPageRequest(pageNumber, pageSize))
+                .map(customerMapper::customerToCustomerDto);
+    }
+
+    /**
+     * Keyset mode: the listing runs in (name, id) order, the same order as the paged listing, and the cursor carries
+     * the name and id of the last customer seen. The next page seeks past both with {@code findAfterName}; customers
+     * without a name sort first, so a cursor without a name seeks with {@code findAfterNoName} past the remaining
+     * unnamed customers and on into every named one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<CustomerDTO> listCustomersAfter(KeysetCursor after, Integer pageSize) {
+        int querySize = resolvePageSize(pageSize);
+
+        // one extra row tells us whether another page follows, without a COUNT
+        Limit limit = Limit.of(querySize + 1);
+        List<Customer> customers;
+
+        if (after == null || after.equals(KeysetCursor.FIRST)) {
+            customers = customerRepository.findAllByOrderByNameAscIdAsc(limit);
+        } else if (after.sortValue() == null) {
+            customers = customerRepository.findAfterNoName(after.id(), limit);
+        } else {
+            customers = customerRepository.findAfterName(after.sortValue(), after.id(), limit);
+        }
+
+        boolean hasNext = customers.size() > querySize;
+        List<Customer> content = hasNext ? customers.subList(0, querySize) : customers;
+
+        String nextCursor = null;
+
+        if (hasNext) {
+            Customer last = content.getLast();
+            nextCursor = new KeysetCursor(last.getName(), last.getId()).toToken();
+        }
+
+        return KeysetPage.<CustomerDTO>builder()
+                .content(content.stream().map(customerMapper::customerToCustomerDto).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Streams the customers with a JDBC fetch size and detaches each one once it has been mapped, so the
+     * persistence context stays the same size however many customers there are.
+     */
     @Override
-    public List<CustomerDTO> listCustomers() {
-        return customerRepository
-                .findAll()
-                .stream()
-                .map(customerMapper::customerToCustomerDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void exportCustomers(Consumer<CustomerDTO> consumer) {
+        try (Stream<Customer> customers = customerRepository.streamAllBy()) {
+            customers.forEach(customer -> {
+                consumer.accept(customerMapper.customerToCustomerDto(customer));
+                entityManager.detach(customer);
+            });
+        }
+    }
+
+    public PageRequest buildPageRequest(Integer pageNumber, Integer pageSize) {
+        int queryPageNumber;
+
+        if (pageNumber != null && pageNumber > 0) {
+            queryPageNumber = pageNumber - 1;
+        } else {
+            queryPageNumber = DEFAULT_PAGE;
+        }
+
+        return PageRequest.of(queryPageNumber, resolvePageSize(pageSize));
+    }
+
+    private int resolvePageSize(Integer pageSize) {
+        // zero or negative sizes fall back to the default rather than failing further down
+        if (pageSize == null || pageSize < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+
+        return Math.min(pageSize, MAX_PAGE_SIZE);
     }
 
     @Override
@@ -36,6 +124,11 @@ public class CustomerServiceJPA implements CustomerService {
                 .findById(id).orElse(null)));
     }
 
+    @Override
+    public Optional<Integer> getCustomerVersion(UUID id) {
+        return customerRepository.findVersionById(id);
+    }
+
     @Override
     public CustomerDTO saveNewCustomer(CustomerDTO customer) {
         return customerMapper
@@ -60,12 +153,14 @@ public class CustomerServiceJPA implements CustomerService {
     }
 
     @Override
+    @Transactional
     public Boolean deleteById(UUID customerId) {
-        if (customerRepository.existsById(customerId)) {
-            customerRepository.deleteById(customerId);
-            return true;
+        // orders are never removed with their customer; a customer who has ordered fails the foreign key
+        try {
+            return customerRepository.deleteCustomerById(customerId) > 0;
+        } catch (DataIntegrityViolationException e) {
+            throw new EntityInUseException("Customer", customerId, e);
         }
-        return false;
     }
 
     @Override
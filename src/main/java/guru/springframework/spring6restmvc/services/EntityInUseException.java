@@ -0,0 +1,13 @@
+package guru.springframework.spring6restmvc.services;
+
+import java.util.UUID;
+
+/**
+ * A delete failed a foreign key: the beer is on order lines, or the customer has orders. Nothing was deleted.
+ */
+public class EntityInUseException extends RuntimeException {
+
+    public EntityInUseException(String entity, UUID id, Throwable cause) {
+        super(entity + " " + id + " is still referenced by orders", cause);
+    }
+}
@@ -0,0 +1,13 @@
+package guru.springframework.spring6restmvc.services;
+
+import java.util.UUID;
+
+/**
+ * An inventory adjustment would have taken quantity on hand below zero; nothing was changed.
+ */
+public class InsufficientInventoryException extends RuntimeException {
+
+    public InsufficientInventoryException(UUID beerId, int delta) {
+        super("Not enough stock of beer " + beerId + " to apply " + delta);
+    }
+}
@@ -0,0 +1,165 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.config.CacheConfig;
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in write-behind for inventory adjustments ({@code beer.inventory.write-behind.enabled}). Deltas collect in one
+ * striped {@link LongAdder} per beer, so concurrent scanners never contend on a row lock, and are written to
+ * {@code quantity_on_hand} by a periodic flush. Reads add the unflushed delta to what the database holds.
+ * <p>
+ * The trade-off: an adjustment is accepted before it is written, so the not-below-zero guard of the direct path can
+ * only be applied at flush time, where the quantity is clamped at zero and the oversold units are logged. The version
+ * moves once per flush rather than once per adjustment, so readers fold {@link #pending} into their entity tags.
+ */
+@Slf4j
+@Component
+public class InventoryWriteBehind {
+
+    private final BeerRepository beerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache beerCache;
+    private final boolean enabled;
+
+    // entries stay once created; removing one could drop a delta a concurrent writer is adding to it
+    private final Map<UUID, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+
+    public InventoryWriteBehind(BeerRepository beerRepository, TransactionTemplate transactionTemplate,
+                                CacheManager cacheManager,
+                                @Value("${beer.inventory.write-behind.enabled:false}") boolean enabled) {
+        this.beerRepository = beerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.beerCache = cacheManager.getCache(CacheConfig.BEER_CACHE);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the delta for the next flush. Only the first adjustment of a beer checks that it exists; returns false
+     * when it does not.
+     */
+    public boolean add(UUID beerId, int delta) {
+        LongAdder pending = pendingDeltas.get(beerId);
+
+        if (pending == null) {
+            if (!beerRepository.existsById(beerId)) {
+                return false;
+            }
+
+            pending = pendingDeltas.computeIfAbsent(beerId, id -> new LongAdder());
+        }
+
+        pending.add(delta);
+        return true;
+    }
+
+    public long pending(UUID beerId) {
+        LongAdder pending = pendingDeltas.get(beerId);
+
+        return pending == null ? 0 : pending.sum();
+    }
+
+    /**
+     * The beer as it will be once pending deltas are flushed. Returns the same instance when nothing is pending,
+     * otherwise a copy, so cached beers are never modified.
+     */
+    public BeerDTO merge(BeerDTO beer) {
+        long pending = beer.getQuantityOnHand() == null ? 0 : pending(beer.getId());
+
+        if (pending == 0) {
+            return beer;
+        }
+
+        return BeerDTO.builder()
+                .id(beer.getId())
+                .version(beer.getVersion())
+                .beerName(beer.getBeerName())
+                .beerStyle(beer.getBeerStyle())
+                .upc(beer.getUpc())
+                .quantityOnHand((int) Math.max(beer.getQuantityOnHand() + pending, 0))
+                .price(beer.getPrice())
+                .createdDate(beer.getCreatedDate())
+                .updateDate(beer.getUpdateDate())
+                .build();
+    }
+
+    /**
+     * Writes every non-zero delta in one transaction: the adjusted beers are read with one SELECT and written back
+     * as JDBC-batched UPDATEs. Only the amount that was written is taken off each adder afterwards, so adjustments
+     * made during the flush wait for the next one. A flush that races a beer update is retried by the next one.
+     */
+    @Scheduled(fixedDelayString = "${beer.inventory.write-behind.flush-interval-ms:200}")
+    @PreDestroy
+    public void flush() {
+        Map<UUID, Long> snapshot = new HashMap<>();
+
+        pendingDeltas.forEach((beerId, pending) -> {
+            long delta = pending.sum();
+
+            if (delta != 0) {
+                snapshot.put(beerId, delta);
+            }
+        });
+
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> missing;
+
+        try {
+            missing = transactionTemplate.execute(status -> {
+                Set<UUID> notFound = new HashSet<>(snapshot.keySet());
+
+                for (Beer beer : beerRepository.findAllById(snapshot.keySet())) {
+                    long quantityOnHand = (beer.getQuantityOnHand() == null ? 0 : beer.getQuantityOnHand())
+                            + snapshot.get(beer.getId());
+
+                    if (quantityOnHand < 0) {
+                        log.warn("Beer {} oversold by {} units; quantity on hand clamped at zero", beer.getId(),
+                                -quantityOnHand);
+                    }
+
+                    beer.setQuantityOnHand(Math.clamp(quantityOnHand, 0, Integer.MAX_VALUE));
+                    notFound.remove(beer.getId());
+                }
+
+                return notFound;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Inventory flush raced a beer update; the next flush retries it", e);
+            return;
+        }
+
+        // evicted first: a reader in between sees the new row plus the old delta, never the old row minus it
+        snapshot.forEach((beerId, delta) -> {
+            beerCache.evict(beerId);
+            pendingDeltas.get(beerId).add(-delta);
+        });
+
+        // the beer was deleted; whatever arrives for it from now on is dropped with it
+        missing.forEach(pendingDeltas::remove);
+    }
+}
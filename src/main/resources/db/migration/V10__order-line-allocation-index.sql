@@ -0,0 +1,2 @@
+-- open order lines of a beer, oldest first, as the allocation engine reads them
+create index ix_beer_order_line_beer_created on beer_order_line (beer_id, created_date, id);
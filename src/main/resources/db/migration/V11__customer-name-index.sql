@@ -0,0 +1,2 @@
+-- paged customer listing sorted by name
+create index ix_customer_name_id on customer (name, id);
@@ -0,0 +1,15 @@
+-- listing sorted by name, and the keyset seek on (beer_name, id)
+create index ix_beer_name_id on beer (beer_name, id);
+
+-- listing by style sorted by name, its count, its keyset seek and the style facet group by
+create index ix_beer_style_name_id on beer (beer_style, beer_name, id);
+
+create index ix_beer_upc on beer (upc);
+
+create index ix_beer_update_date_id on beer (update_date, id);
+
+-- a customer's orders, newest or oldest first; also serves the customer_id foreign key
+create index ix_beer_order_customer_created on beer_order (customer_id, created_date);
+
+-- beers of a category; the primary key (beer_id, category_id) already covers the other direction
+create index ix_beer_category_category_beer on beer_category (category_id, beer_id);
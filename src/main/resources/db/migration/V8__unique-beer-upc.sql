@@ -0,0 +1,13 @@
+-- upc identifies a beer at the point of sale. The original seed data gave two beers upc 12356, so on existing
+-- databases every duplicate but the lowest id gets its id appended before the index is built.
+update beer b
+    join (select upc, min(id) as keep_id
+          from beer
+          group by upc
+          having count(*) > 1) duplicate on b.upc = duplicate.upc
+set b.upc = concat(b.upc, '-', lower(hex(b.id)))
+where b.id <> duplicate.keep_id;
+
+drop index ix_beer_upc on beer;
+
+create unique index ux_beer_upc on beer (upc);
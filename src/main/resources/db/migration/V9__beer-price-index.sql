@@ -0,0 +1,2 @@
+-- backs the minPrice / maxPrice listing filters
+create index ix_beer_price_id on beer (price, id);
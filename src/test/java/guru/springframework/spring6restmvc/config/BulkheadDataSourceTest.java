@@ -0,0 +1,77 @@
+package guru.springframework.spring6restmvc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class BulkheadDataSourceTest {
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void testDataSourceWrappedWithPoolSizedBulkhead() throws Exception {
+        assertThat(dataSource).isInstanceOf(BulkheadDataSource.class);
+
+        HikariDataSource hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+
+        // the tests leave maximum-pool-size unset, so both sides must have picked up Hikari's default
+        assertThat(hikariDataSource.getMaximumPoolSize()).isEqualTo(DatabaseBulkheadConfig.HIKARI_DEFAULT_POOL_SIZE);
+        assertThat(((BulkheadDataSource) dataSource).availablePermits())
+                .isEqualTo(hikariDataSource.getMaximumPoolSize());
+    }
+
+    @Test
+    void testPermitReleasedOnceOnClose() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        given(target.getConnection()).willReturn(connection);
+
+        BulkheadDataSource bulkhead = new BulkheadDataSource(target, 2, Duration.ofMillis(10));
+
+        Connection first = bulkhead.getConnection();
+        assertThat(bulkhead.availablePermits()).isEqualTo(1);
+
+        first.close();
+        first.close();
+
+        assertThat(bulkhead.availablePermits()).isEqualTo(2);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void testFullBulkheadTimesOut() throws Exception {
+        DataSource target = mock(DataSource.class);
+        given(target.getConnection()).willReturn(mock(Connection.class));
+
+        BulkheadDataSource bulkhead = new BulkheadDataSource(target, 1, Duration.ofMillis(10));
+        bulkhead.getConnection();
+
+        assertThatThrownBy(bulkhead::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+    }
+
+    @Test
+    void testPermitReturnedWhenPoolFails() throws Exception {
+        DataSource target = mock(DataSource.class);
+        given(target.getConnection()).willThrow(new SQLTransientConnectionException("pool exhausted"));
+
+        BulkheadDataSource bulkhead = new BulkheadDataSource(target, 1, Duration.ofMillis(10));
+
+        assertThatThrownBy(bulkhead::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(bulkhead.availablePermits()).isEqualTo(1);
+    }
+}
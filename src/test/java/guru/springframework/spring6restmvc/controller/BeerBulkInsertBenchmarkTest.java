@@ -0,0 +1,128 @@
+package guru.springframework.spring6restmvc.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring6restmvc.model.BeerBulkRequest;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Wall-clock time to create {@link #BEERS} beers with one POST each against a single bulk POST. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BeerBulkInsertBenchmarkTest {
+
+    static final int BEERS = 2000;
+
+    @Autowired
+    WebApplicationContext wac;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    MockMvc mockMvc;
+
+    List<UUID> created = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        beerRepository.deleteAllByIdInBatch(created);
+    }
+
+    @Test
+    void compareSinglePostsWithBulkPost() throws Exception {
+        // warm up both paths
+        created.addAll(postEach(newBeers("warmup-single", 100)));
+        created.addAll(postBulk(newBeers("warmup-bulk", 100)));
+
+        List<BeerDTO> singleBeers = newBeers("single", BEERS);
+        long singleStart = System.nanoTime();
+        created.addAll(postEach(singleBeers));
+        long singleMillis = (System.nanoTime() - singleStart) / 1_000_000;
+
+        List<BeerDTO> bulkBeers = newBeers("bulk", BEERS);
+        long bulkStart = System.nanoTime();
+        created.addAll(postBulk(bulkBeers));
+        long bulkMillis = (System.nanoTime() - bulkStart) / 1_000_000;
+
+        System.out.printf("%,d single POSTs: %,d ms (%,.0f beers/s)%n", BEERS, singleMillis,
+                BEERS * 1000.0 / Math.max(singleMillis, 1));
+        System.out.printf("1 bulk POST:      %,d ms (%,.0f beers/s)%n", bulkMillis,
+                BEERS * 1000.0 / Math.max(bulkMillis, 1));
+
+        assertThat(bulkMillis).isLessThan(singleMillis);
+    }
+
+    private List<UUID> postEach(List<BeerDTO> beers) throws Exception {
+        List<UUID> ids = new ArrayList<>();
+
+        for (BeerDTO beer : beers) {
+            String location = mockMvc.perform(post(BeerController.BEER_PATH)
+                            .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(beer)))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getHeader("Location");
+
+            ids.add(UUID.fromString(location.substring(location.lastIndexOf('/') + 1)));
+        }
+
+        return ids;
+    }
+
+    private List<UUID> postBulk(List<BeerDTO> beers) throws Exception {
+        String body = mockMvc.perform(post(BeerController.BEER_BULK_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BeerBulkRequest.builder().beers(beers).build())))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        return List.of(objectMapper.readValue(body, UUID[].class));
+    }
+
+    private static List<BeerDTO> newBeers(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> BeerDTO.builder()
+                        .beerName(prefix + " " + i)
+                        .beerStyle(BeerStyle.PALE_ALE)
+                        .upc(prefix + "-" + i)
+                        .price(new BigDecimal("11.99"))
+                        .build())
+                .toList();
+    }
+}
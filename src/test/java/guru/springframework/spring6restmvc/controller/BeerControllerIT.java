@@ -1,11 +1,18 @@
 package guru.springframework.spring6restmvc.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import guru.springframework.spring6restmvc.entities.Beer;
 import guru.springframework.spring6restmvc.mappers.BeerMapper;
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
 import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import guru.springframework.spring6restmvc.services.BeerOrderService;
 import org.hamcrest.core.IsNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,14 +22,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.math.BigDecimal;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -33,6 +46,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -47,6 +61,12 @@ class BeerControllerIT {
     @Autowired
     BeerMapper beerMapper;
 
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
     @Autowired
     WebApplicationContext wac;
 
@@ -164,6 +184,50 @@ class BeerControllerIT {
                 .andExpect(jsonPath("$.content.size()", is(548)));
     }
 
+    @Test
+    void testListBeersByStylesAndPriceRange() throws Exception {
+        long expected = beerRepository.findAll().stream()
+                .filter(beer -> beer.getBeerStyle() == BeerStyle.IPA || beer.getBeerStyle() == BeerStyle.ALE)
+                .filter(beer -> beer.getPrice().compareTo(new BigDecimal("11.00")) >= 0)
+                .count();
+
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .queryParam("beerStyle", BeerStyle.IPA.name(), BeerStyle.ALE.name())
+                        .queryParam("minPrice", "11.00")
+                        .queryParam("pageSize", "25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is((int) expected)));
+    }
+
+    @Test
+    void testListBeersSortedByPriceDescending() throws Exception {
+        MvcResult result = mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .queryParam("sort", "price,desc")
+                        .queryParam("pageSize", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.size()", is(10)))
+                .andReturn();
+
+        List<BigDecimal> prices = objectMapper.readTree(result.getResponse().getContentAsString())
+                .get("content").findValues("price").stream()
+                .map(JsonNode::decimalValue)
+                .toList();
+
+        assertThat(prices).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(prices.getFirst()).isEqualByComparingTo(beerRepository.findAll().stream()
+                .map(Beer::getPrice).max(BigDecimal::compareTo).orElseThrow());
+    }
+
+    @Test
+    void testListBeersUnindexedSortRejected() throws Exception {
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .queryParam("sort", "upc"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testListBeersByName() throws Exception {
         mockMvc.perform(get(BeerController.BEER_PATH)
@@ -208,10 +272,32 @@ class BeerControllerIT {
         assertThat(beerRepository.findById(beer.getId()).isEmpty());
     }
 
+    @Rollback
+    @Transactional
+    @Test
+    void testDeleteOrderedBeerConflict() throws Exception {
+        Beer beer = beerRepository.findAll().getFirst();
+
+        beerOrderService.placeOrder(BeerOrderDTO.builder()
+                .customerId(customerRepository.findAll().getFirst().getId())
+                .beerOrderLines(List.of(BeerOrderLineDTO.builder()
+                        .beerId(beer.getId())
+                        .orderQuantity(1)
+                        .build()))
+                .build()).orElseThrow();
+
+        mockMvc.perform(delete(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$[0].id").exists());
+
+        assertThat(beerRepository.existsById(beer.getId())).isTrue();
+    }
+
     @Test
     void testUpdateNotFound() {
         assertThrows(NotFoundException.class, () -> {
-            beerController.updateById(UUID.randomUUID(), BeerDTO.builder().build());
+            beerController.updateById(UUID.randomUUID(), null, BeerDTO.builder().build());
         });
     }
 
@@ -226,7 +312,7 @@ class BeerControllerIT {
         final String beerName = "UPDATED";
         beerDTO.setBeerName(beerName);
 
-        ResponseEntity responseEntity = beerController.updateById(beer.getId(), beerDTO);
+        ResponseEntity responseEntity = beerController.updateById(beer.getId(), null, beerDTO);
         assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(204));
 
         Beer updatedBeer = beerRepository.findById(beer.getId()).get();
@@ -256,32 +342,212 @@ class BeerControllerIT {
     @Test
     void testBeerIdNotFound() {
         assertThrows(NotFoundException.class, () ->
-                beerController.getBeerById(UUID.randomUUID()));
+                beerController.getBeerById(UUID.randomUUID(), webRequest()));
     }
 
     @Test
     void testGetById() {
         Beer beer = beerRepository.findAll().getFirst();
 
-        BeerDTO dto = beerController.getBeerById(beer.getId());
+        BeerDTO dto = beerController.getBeerById(beer.getId(), webRequest());
 
         assertThat(dto).isNotNull();
     }
 
+    @Test
+    void testGetByIdNotModified() throws Exception {
+        Beer beer = beerRepository.findAll().getFirst();
+
+        MvcResult result = mockMvc.perform(get(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String etag = result.getResponse().getHeader("ETag");
+        assertThat(etag).isEqualTo("\"" + beer.getVersion() + "\"");
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Rollback
+    @Transactional
+    @Test
+    void testConditionalPatch() throws Exception {
+        Beer beer = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("If-Match Lager")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("if-match-1")
+                .price(new BigDecimal("9.99"))
+                .build());
+        String etag = "\"" + beer.getVersion() + "\"";
+
+        MvcResult result = mockMvc.perform(patch(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("price", 10.49))))
+                .andExpect(status().isNoContent())
+                .andReturn();
+
+        assertThat(result.getResponse().getHeader("ETag")).isEqualTo("\"" + (beer.getVersion() + 1) + "\"");
+
+        Beer patched = beerRepository.findById(beer.getId()).orElseThrow();
+        assertThat(patched.getPrice()).isEqualByComparingTo("10.49");
+        assertThat(patched.getBeerName()).isEqualTo("If-Match Lager");
+        assertThat(patched.getVersion()).isEqualTo(beer.getVersion() + 1);
+
+        // a second writer still holding the old version loses instead of overwriting
+        mockMvc.perform(patch(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("price", 11.49))))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(beerRepository.findById(beer.getId()).orElseThrow().getPrice()).isEqualByComparingTo("10.49");
+
+        mockMvc.perform(patch(BeerController.BEER_PATH_ID, UUID.randomUUID())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("price", 11.49))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testListBeersNotModified() throws Exception {
+        MvcResult result = mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .queryParam("beerStyle", BeerStyle.IPA.name()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String etag = result.getResponse().getHeader("ETag");
+        assertThat(etag).isNotNull();
+
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .queryParam("beerStyle", BeerStyle.IPA.name())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testExportBeers() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get(BeerController.BEER_EXPORT_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines().count()).isEqualTo(beerRepository.count());
+    }
+
+    @Test
+    void testCreateBeerDuplicateUpc() throws Exception {
+        Beer existing = beerRepository.findAll().getFirst();
+
+        BeerDTO duplicate = BeerDTO.builder()
+                .beerName("Duplicate Upc")
+                .beerStyle(BeerStyle.LAGER)
+                .upc(existing.getUpc())
+                .price(new BigDecimal("9.99"))
+                .build();
+
+        mockMvc.perform(post(BeerController.BEER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(duplicate)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$[0].upc").exists());
+    }
+
+    @Test
+    void testGetByUpc() throws Exception {
+        Beer beer = beerRepository.findAll().getFirst();
+
+        mockMvc.perform(get(BeerController.BEER_UPC_PATH, beer.getUpc())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(beer.getId().toString())));
+    }
+
     @Test
     void testListBeers() {
-        Page<BeerDTO> dtos = beerController.listBeers(null, null, false, 1, 2413);
+        Page<BeerDTO> dtos = beerController.listBeers(null, null, null, null, false, null, 1, 2413, webRequest());
 
         assertThat(dtos.getContent().size()).isEqualTo(1000);
     }
 
+    @Test
+    void testListBeersByStyleWithoutTotal() throws Exception {
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .queryParam("beerStyle", BeerStyle.IPA.name())
+                        .queryParam("withTotal", "false")
+                        .queryParam("pageSize", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.size()", is(500)))
+                .andExpect(jsonPath("$.last", is(false)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void testListBeersAfterCursorByStyle() {
+        KeysetPage<BeerDTO> firstPage = beerController.listBeersAfter(null, List.of(BeerStyle.IPA), null, null, false,
+                KeysetCursor.FIRST, 500);
+
+        assertThat(firstPage.getContent().size()).isEqualTo(500);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        KeysetPage<BeerDTO> secondPage = beerController.listBeersAfter(null, List.of(BeerStyle.IPA), null, null, false,
+                KeysetCursor.valueOf(firstPage.getNextCursor()), 500);
+
+        assertThat(secondPage.getContent().size()).isEqualTo(48);
+        assertThat(secondPage.getNextCursor()).isNull();
+        assertThat(secondPage.getContent()).doesNotContainAnyElementsOf(firstPage.getContent());
+    }
+
+    @Test
+    void testListBeersAfterCursorNonPositivePageSize() {
+        for (int pageSize : new int[]{0, -5}) {
+            KeysetPage<BeerDTO> page = beerController.listBeersAfter(null, null, null, null, false,
+                    KeysetCursor.FIRST, pageSize);
+
+            assertThat(page.getContent().size()).isEqualTo(25);
+            assertThat(page.getNextCursor()).isNotNull();
+        }
+    }
+
+    @Test
+    void testListBeersAfterCursorByName() throws Exception {
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .queryParam("beerName", "IPA")
+                        .queryParam("after", "")
+                        .queryParam("pageSize", "800"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.size()", is(336)))
+                .andExpect(jsonPath("$.nextCursor").value(IsNull.nullValue()));
+    }
+
     @Rollback
     @Transactional
     @Test
     void testEmptyList() {
         beerRepository.deleteAll();
-        Page<BeerDTO> dtos = beerController.listBeers(null, null, false, 1, 25);
+        Page<BeerDTO> dtos = beerController.listBeers(null, null, null, null, false, null, 1, 25, webRequest());
 
         assertThat(dtos.getContent().size()).isEqualTo(0);
     }
-}
\ No newline at end of file
+
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+}
@@ -2,9 +2,16 @@ package guru.springframework.spring6restmvc.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import guru.springframework.spring6restmvc.config.SpringSecConfig;
+import guru.springframework.spring6restmvc.model.BeerBulkRequest;
 import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerSortOrder;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.InventoryAdjustment;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import guru.springframework.spring6restmvc.services.BeerService;
 import guru.springframework.spring6restmvc.services.BeerServiceImpl;
+import guru.springframework.spring6restmvc.services.InsufficientInventoryException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -13,20 +20,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.never;
 import static org.mockito.BDDMockito.verify;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -62,7 +78,7 @@ class BeerControllerTest {
 
     @Test
     void testPatchBeer() throws Exception {
-        BeerDTO beer = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().getFirst();
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
 
         Map<String, Object> beerMap = new HashMap<>();
         beerMap.put("beerName", "New Name");
@@ -82,7 +98,7 @@ class BeerControllerTest {
 
     @Test
     void deleteBeer() throws Exception {
-        BeerDTO beer = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().getFirst();
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
 
         given(beerService.deleteById(any())).willReturn(true);
 
@@ -98,7 +114,7 @@ class BeerControllerTest {
 
     @Test
     void testUpdateBeer() throws Exception {
-        BeerDTO beer = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().getFirst();
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
 
         given(beerService.updateBeerById(any(), any())).willReturn(Optional.of(beer));
 
@@ -112,13 +128,109 @@ class BeerControllerTest {
         verify(beerService).updateBeerById(any(UUID.class), any(BeerDTO.class));
     }
 
+    @Test
+    void testUpdateBeerIfMatch() throws Exception {
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
+
+        given(beerService.updateBeerByIdIfMatch(any(), any(), any())).willReturn(Optional.of(2));
+
+        mockMvc.perform(put(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beer)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"2\""));
+
+        verify(beerService).updateBeerByIdIfMatch(eq(beer.getId()), eq(1), any(BeerDTO.class));
+        verify(beerService, never()).updateBeerById(any(), any());
+    }
+
+    @Test
+    void testUpdateBeerIfMatchStale() throws Exception {
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
+
+        given(beerService.updateBeerByIdIfMatch(any(), any(), any()))
+                .willThrow(new OptimisticLockingFailureException("stale"));
+
+        mockMvc.perform(put(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beer)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testPatchBeerIfMatchNotFound() throws Exception {
+        given(beerService.patchBeerByIdIfMatch(any(), any(), any())).willReturn(Optional.empty());
+
+        mockMvc.perform(patch(BeerController.BEER_PATH_ID, UUID.randomUUID())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("price", 12.99))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testPatchBeerMalformedIfMatch() throws Exception {
+        mockMvc.perform(patch(BeerController.BEER_PATH_ID, UUID.randomUUID())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-Match", "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("price", 12.99))))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(beerService, never()).patchBeerByIdIfMatch(any(), any(), any());
+        verify(beerService, never()).patchBeerById(any(), any());
+    }
+
+    @Test
+    void testAdjustInventory() throws Exception {
+        UUID beerId = UUID.randomUUID();
+        given(beerService.adjustInventory(any(), anyInt())).willReturn(true);
+
+        mockMvc.perform(post(BeerController.BEER_INVENTORY_PATH, beerId)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(InventoryAdjustment.builder().delta(-6).build())))
+                .andExpect(status().isNoContent());
+
+        verify(beerService).adjustInventory(beerId, -6);
+    }
+
+    @Test
+    void testAdjustInventoryInsufficientStock() throws Exception {
+        UUID beerId = UUID.randomUUID();
+        given(beerService.adjustInventory(any(), anyInt()))
+                .willThrow(new InsufficientInventoryException(beerId, -6));
+
+        mockMvc.perform(post(BeerController.BEER_INVENTORY_PATH, beerId)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(InventoryAdjustment.builder().delta(-6).build())))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testAdjustInventoryWithoutDelta() throws Exception {
+        mockMvc.perform(post(BeerController.BEER_INVENTORY_PATH, UUID.randomUUID())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(InventoryAdjustment.builder().build())))
+                .andExpect(status().isBadRequest());
+
+        verify(beerService, never()).adjustInventory(any(), anyInt());
+    }
+
     @Test
     void testCreateNewBeer() throws Exception {
-        BeerDTO beer = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().getFirst();
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
         beer.setVersion(null);
         beer.setId(null);
 
-        given(beerService.saveNewBeer(any(BeerDTO.class))).willReturn(beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().get(1));
+        given(beerService.saveNewBeer(any(BeerDTO.class))).willReturn(beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().get(1));
 
         mockMvc.perform(post(BeerController.BEER_PATH)
                         .with(httpBasic(USERNAME, PASSWORD))
@@ -129,12 +241,44 @@ class BeerControllerTest {
                 .andExpect(header().exists("Location"));
     }
 
+    @Test
+    void testCreateBeersInBulk() throws Exception {
+        List<BeerDTO> beers = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent();
+        List<UUID> ids = beers.stream().map(BeerDTO::getId).toList();
+
+        given(beerService.saveNewBeers(any())).willReturn(ids);
+
+        mockMvc.perform(post(BeerController.BEER_BULK_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BeerBulkRequest.builder().beers(beers).build())))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()", is(ids.size())))
+                .andExpect(jsonPath("$[0]", is(ids.getFirst().toString())));
+    }
+
+    @Test
+    void testCreateBeersInBulkRejectsInvalidBeer() throws Exception {
+        List<BeerDTO> beers = List.of(beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst(),
+                BeerDTO.builder().build());
+
+        mockMvc.perform(post(BeerController.BEER_BULK_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(BeerBulkRequest.builder().beers(beers).build())))
+                .andExpect(status().isBadRequest());
+
+        verify(beerService, never()).saveNewBeers(any());
+    }
+
     @Test
     void testCreateBeerNullBeerName() throws Exception {
 
         BeerDTO beerDTO = BeerDTO.builder().build();
 
-        given(beerService.saveNewBeer(any(BeerDTO.class))).willReturn(beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().get(1));
+        given(beerService.saveNewBeer(any(BeerDTO.class))).willReturn(beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().get(1));
 
         MvcResult mvcResult = mockMvc.perform(post(BeerController.BEER_PATH)
                         .with(httpBasic(USERNAME, PASSWORD))
@@ -151,7 +295,7 @@ class BeerControllerTest {
     @Test
     void testUpdateBeerNullBeerName() throws Exception {
 
-        BeerDTO beer = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().getFirst();
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
         beer.setBeerName("");
 
         given(beerService.updateBeerById(any(), any())).willReturn(Optional.of(beer));
@@ -170,8 +314,8 @@ class BeerControllerTest {
 
     @Test
     void listOfBeers() throws Exception {
-        given(beerService.listBeers(any(), any(), any(), any(), any()))
-                .willReturn(beerServiceImpl.listBeers(null, null, false, 1, 25));
+        given(beerService.listBeers(any(), any(), any(), any(), any(), any(), any(), any()))
+                .willReturn(beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25));
 
         mockMvc.perform(get(BeerController.BEER_PATH)
                         .with(httpBasic(USERNAME, PASSWORD))
@@ -180,6 +324,87 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$.content.length()", is(3)));
     }
 
+    @Test
+    void listOfBeersWithoutTotal() throws Exception {
+        given(beerService.listBeersSlice(any(), any(), any(), any(), any(), any(), any(), any()))
+                .willReturn(new SliceImpl<>(beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent()));
+
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .queryParam("withTotal", "false")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(3)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void listOfBeersAfterCursor() throws Exception {
+        KeysetPage<BeerDTO> keysetPage = KeysetPage.<BeerDTO>builder()
+                .content(beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent())
+                .nextCursor("next")
+                .build();
+
+        given(beerService.listBeersAfter(any(), any(), any(), any(), any(), any(), any())).willReturn(keysetPage);
+
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .queryParam("after", "")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(3)))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    void listOfBeersCursorWithoutName() throws Exception {
+        // decodes to exactly a uuid, with no name to seek from
+        String token = new KeysetCursor(null, UUID.randomUUID()).toToken();
+
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .queryParam("after", token)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(beerService, never()).listBeersAfter(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void listOfBeersMalformedCursor() throws Exception {
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .queryParam("after", "not a cursor!")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listOfBeersSortedByPriceDescending() throws Exception {
+        given(beerService.listBeers(any(), any(), any(), any(), any(), any(), any(), any()))
+                .willReturn(beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25));
+
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .queryParam("sort", "price,desc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(beerService).listBeers(any(), any(), any(), any(), any(),
+                eq(new BeerSortOrder(BeerSortOrder.Key.PRICE, true)), any(), any());
+    }
+
+    @Test
+    void listOfBeersUnindexedSort() throws Exception {
+        mockMvc.perform(get(BeerController.BEER_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .queryParam("sort", "quantityOnHand")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(beerService, never()).listBeers(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
     @Test
     void getBeerByIdNotFound() throws Exception {
 
@@ -192,7 +417,7 @@ class BeerControllerTest {
 
     @Test
     void getBeerById() throws Exception{
-        BeerDTO testBeer = beerServiceImpl.listBeers(null, null, false, 1, 25).getContent().getFirst();
+        BeerDTO testBeer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
 
         given(beerService.getBeerById(any(UUID.class))).willReturn(Optional.of(testBeer));
 
@@ -205,4 +430,151 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$.beerName", is(testBeer.getBeerName())));
     }
 
-}
\ No newline at end of file
+    @Test
+    void getBeerByIdSetsETag() throws Exception {
+        BeerDTO testBeer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
+
+        given(beerService.getBeerById(any(UUID.class))).willReturn(Optional.of(testBeer));
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, testBeer.getId())
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + testBeer.getVersion() + "\""));
+    }
+
+    @Test
+    void getBeerByIdETagIncludesPendingInventory() throws Exception {
+        BeerDTO testBeer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
+        testBeer.setVersion(1);
+
+        given(beerService.getBeerById(any(UUID.class))).willReturn(Optional.of(testBeer));
+        given(beerService.getPendingInventory(any(UUID.class))).willReturn(-5L);
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, testBeer.getId())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-None-Match", "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1/-5\""));
+    }
+
+    @Test
+    void testUpdateBeerIfMatchIgnoresPendingInventory() throws Exception {
+        BeerDTO beer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
+
+        given(beerService.updateBeerByIdIfMatch(any(), any(), any())).willReturn(Optional.of(2));
+
+        mockMvc.perform(put(BeerController.BEER_PATH_ID, beer.getId())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-Match", "\"1/-5\"")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(beer)))
+                .andExpect(status().isNoContent());
+
+        verify(beerService).updateBeerByIdIfMatch(eq(beer.getId()), eq(1), any(BeerDTO.class));
+    }
+
+    @Test
+    void getBeerByIdNotModified() throws Exception {
+        BeerDTO testBeer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
+        testBeer.setVersion(1);
+
+        given(beerService.getBeerById(any(UUID.class))).willReturn(Optional.of(testBeer));
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, testBeer.getId())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getBeerByIdChangedSinceETag() throws Exception {
+        BeerDTO testBeer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
+
+        testBeer.setVersion(2);
+
+        given(beerService.getBeerById(any(UUID.class))).willReturn(Optional.of(testBeer));
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, testBeer.getId())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-None-Match", "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(testBeer.getId().toString())));
+    }
+
+    @Test
+    void getBeerByIdNotModifiedNotFound() throws Exception {
+        given(beerService.getBeerById(any(UUID.class))).willReturn(Optional.empty());
+
+        mockMvc.perform(get(BeerController.BEER_PATH_ID, UUID.randomUUID())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void exportBeers() throws Exception {
+        List<BeerDTO> beers = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent();
+
+        willAnswer(invocation -> {
+            Consumer<BeerDTO> consumer = invocation.getArgument(0);
+            beers.forEach(consumer);
+            return null;
+        }).given(beerService).exportBeers(any());
+
+        MvcResult mvcResult = mockMvc.perform(get(BeerController.BEER_EXPORT_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+
+        assertThat(lines).hasSize(beers.size());
+        assertThat(objectMapper.readValue(lines.getFirst(), BeerDTO.class).getId())
+                .isEqualTo(beers.getFirst().getId());
+    }
+
+    @Test
+    void countBeersByStyle() throws Exception {
+        Map<BeerStyle, Long> counts = new EnumMap<>(BeerStyle.class);
+        counts.put(BeerStyle.IPA, 3L);
+        counts.put(BeerStyle.LAGER, 0L);
+
+        given(beerService.countBeersByStyle("ipa")).willReturn(counts);
+
+        mockMvc.perform(get(BeerController.BEER_STYLE_FACET_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .queryParam("beerName", "ipa"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.IPA", is(3)))
+                .andExpect(jsonPath("$.LAGER", is(0)));
+    }
+
+    @Test
+    void getBeerByUpc() throws Exception {
+        BeerDTO testBeer = beerServiceImpl.listBeers(null, null, null, null, false, null, 1, 25).getContent().getFirst();
+
+        given(beerService.getBeerByUpc(testBeer.getUpc())).willReturn(Optional.of(testBeer));
+
+        mockMvc.perform(get(BeerController.BEER_UPC_PATH, testBeer.getUpc())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(testBeer.getId().toString())))
+                .andExpect(jsonPath("$.upc", is(testBeer.getUpc())));
+    }
+
+    @Test
+    void getBeerByUpcNotFound() throws Exception {
+        given(beerService.getBeerByUpc(any())).willReturn(Optional.empty());
+
+        mockMvc.perform(get(BeerController.BEER_UPC_PATH, "0000000")
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(status().isNotFound());
+    }
+}
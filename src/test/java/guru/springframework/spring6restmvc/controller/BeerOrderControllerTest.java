@@ -0,0 +1,137 @@
+package guru.springframework.spring6restmvc.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring6restmvc.config.SpringSecConfig;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
+import guru.springframework.spring6restmvc.services.BeerOrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(BeerOrderController.class)
+@Import(SpringSecConfig.class)
+class BeerOrderControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @MockBean
+    BeerOrderService beerOrderService;
+
+    @Test
+    void testPlaceOrder() throws Exception {
+        BeerOrderDTO order = newOrder();
+        BeerOrderDTO saved = newOrder();
+        saved.setId(UUID.randomUUID());
+
+        given(beerOrderService.placeOrder(any(BeerOrderDTO.class))).willReturn(Optional.of(saved));
+
+        mockMvc.perform(post(BeerOrderController.BEER_ORDER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", BeerOrderController.BEER_ORDER_PATH + "/" + saved.getId()));
+    }
+
+    @Test
+    void testPlaceOrderUnknownReference() throws Exception {
+        given(beerOrderService.placeOrder(any(BeerOrderDTO.class))).willReturn(Optional.empty());
+
+        mockMvc.perform(post(BeerOrderController.BEER_ORDER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newOrder())))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testPlaceOrderRejectsInvalidLine() throws Exception {
+        BeerOrderDTO order = newOrder();
+        order.setBeerOrderLines(List.of(BeerOrderLineDTO.builder()
+                .beerId(UUID.randomUUID())
+                .orderQuantity(0)
+                .build()));
+
+        mockMvc.perform(post(BeerOrderController.BEER_ORDER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isBadRequest());
+
+        verify(beerOrderService, never()).placeOrder(any());
+    }
+
+    @Test
+    void testPlaceOrderRejectsEmptyOrder() throws Exception {
+        BeerOrderDTO order = newOrder();
+        order.setBeerOrderLines(List.of());
+
+        mockMvc.perform(post(BeerOrderController.BEER_ORDER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isBadRequest());
+
+        verify(beerOrderService, never()).placeOrder(any());
+    }
+
+    @Test
+    void testGetOrderById() throws Exception {
+        BeerOrderDTO order = newOrder();
+        order.setId(UUID.randomUUID());
+
+        given(beerOrderService.getBeerOrderById(order.getId())).willReturn(Optional.of(order));
+
+        mockMvc.perform(get(BeerOrderController.BEER_ORDER_PATH_ID, order.getId())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(order.getId().toString())))
+                .andExpect(jsonPath("$.beerOrderLines.length()", is(2)));
+    }
+
+    @Test
+    void testGetOrderByIdNotFound() throws Exception {
+        given(beerOrderService.getBeerOrderById(any(UUID.class))).willReturn(Optional.empty());
+
+        mockMvc.perform(get(BeerOrderController.BEER_ORDER_PATH_ID, UUID.randomUUID())
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD)))
+                .andExpect(status().isNotFound());
+    }
+
+    private static BeerOrderDTO newOrder() {
+        return BeerOrderDTO.builder()
+                .customerId(UUID.randomUUID())
+                .customerRef("Test order")
+                .beerOrderLines(List.of(
+                        BeerOrderLineDTO.builder().beerId(UUID.randomUUID()).orderQuantity(6).build(),
+                        BeerOrderLineDTO.builder().beerId(UUID.randomUUID()).orderQuantity(12).build()))
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package guru.springframework.spring6restmvc.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Orders per second for {@link #ORDERS} orders of {@link #LINES} lines each, placed with one POST per order. Run
+ * with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "beer.order.allocation.enabled=false")
+class BeerOrderPlacementBenchmarkTest {
+
+    static final int ORDERS = 200;
+    static final int LINES = 200;
+
+    @Autowired
+    WebApplicationContext wac;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @Test
+    void placeOrdersWithManyLines() throws Exception {
+        UUID customerId = customerRepository.findAll().getFirst().getId();
+        List<UUID> beerIds = beerRepository.findAll(PageRequest.of(0, LINES)).map(Beer::getId).getContent();
+        assertThat(beerIds).hasSize(LINES);
+
+        byte[] body = objectMapper.writeValueAsBytes(BeerOrderDTO.builder()
+                .customerId(customerId)
+                .customerRef("benchmark")
+                .beerOrderLines(beerIds.stream()
+                        .map(beerId -> BeerOrderLineDTO.builder().beerId(beerId).orderQuantity(1).build())
+                        .toList())
+                .build());
+
+        List<UUID> placed = new ArrayList<>();
+
+        try {
+            // warm up
+            for (int i = 0; i < 20; i++) {
+                placed.add(place(body));
+            }
+
+            long begin = System.nanoTime();
+
+            for (int i = 0; i < ORDERS; i++) {
+                placed.add(place(body));
+            }
+
+            long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+
+            System.out.printf("%,d orders x %,d lines in %,d ms (%,.0f orders/s, %,.0f lines/s)%n", ORDERS, LINES,
+                    elapsedMillis, ORDERS * 1000.0 / Math.max(elapsedMillis, 1),
+                    ORDERS * LINES * 1000.0 / Math.max(elapsedMillis, 1));
+        } finally {
+            // the order lines hold foreign keys to the shared beers, so leave nothing behind for later tests
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.createQuery("delete from BeerOrderLine l where l.beerOrder.id in :ids")
+                        .setParameter("ids", placed)
+                        .executeUpdate();
+                entityManager.createQuery("delete from BeerOrder o where o.id in :ids")
+                        .setParameter("ids", placed)
+                        .executeUpdate();
+            });
+        }
+    }
+
+    private UUID place(byte[] body) throws Exception {
+        String location = mockMvc.perform(post(BeerOrderController.BEER_ORDER_PATH)
+                        .with(httpBasic(BeerControllerTest.USERNAME, BeerControllerTest.PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+
+        return UUID.fromString(location.substring(location.lastIndexOf('/') + 1));
+    }
+}
@@ -2,21 +2,44 @@ package guru.springframework.spring6restmvc.controller;
 
 import guru.springframework.spring6restmvc.entities.Customer;
 import guru.springframework.spring6restmvc.mappers.CustomerMapper;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.model.KeysetPage;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
 import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import guru.springframework.spring6restmvc.services.BeerOrderService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 class CustomerControllerIT {
@@ -30,6 +53,24 @@ class CustomerControllerIT {
     @Autowired
     CustomerMapper customerMapper;
 
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    WebApplicationContext wac;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(wac)
+                .apply(springSecurity())
+                .build();
+    }
+
     @Test
     void testDeleteNotFound() {
         assertThrows(NotFoundException.class, () -> {
@@ -49,6 +90,28 @@ class CustomerControllerIT {
         assertThat(customerRepository.findById(customer.getId()).isEmpty());
     }
 
+    @Rollback
+    @Transactional
+    @Test
+    void testDeleteCustomerWithOrdersConflict() throws Exception {
+        Customer customer = customerRepository.findAll().getFirst();
+
+        beerOrderService.placeOrder(BeerOrderDTO.builder()
+                .customerId(customer.getId())
+                .beerOrderLines(List.of(BeerOrderLineDTO.builder()
+                        .beerId(beerRepository.findAll().getFirst().getId())
+                        .orderQuantity(1)
+                        .build()))
+                .build()).orElseThrow();
+
+        mockMvc.perform(delete(CustomerController.CUSTOMER_PATH_ID, customer.getId())
+                        .with(httpBasic(CustomerControllerTest.USERNAME, CustomerControllerTest.PASSWORD)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$[0].id").exists());
+
+        assertThat(customerRepository.existsById(customer.getId())).isTrue();
+    }
+
     @Test
     void testUpdateNotFound() {
         assertThrows(NotFoundException.class, () -> {
@@ -99,23 +162,84 @@ class CustomerControllerIT {
     void testGetById() {
         Customer customer = customerRepository.findAll().getFirst();
 
-        CustomerDTO customerDTO = customerController.getCustomer(customer.getId());
+        CustomerDTO customerDTO = customerController.getCustomer(customer.getId(), webRequest());
 
         assertThat(customerDTO).isNotNull();
     }
 
     @Test
     void testListCustomers() {
-        List<CustomerDTO> customers = customerController.listCustomers();
+        Page<CustomerDTO> customers = customerController.listCustomers(null, null);
 
         assertThat(customers).isNotNull();
-        assertThat(customers.size()).isEqualTo(3);
+        assertThat(customers.getContent().size()).isEqualTo(3);
+    }
+
+    @Rollback
+    @Transactional
+    @Test
+    void testListCustomersPaged() {
+        List<Customer> saved = customerRepository.saveAll(IntStream.range(0, 30)
+                .mapToObj(i -> Customer.builder().name(String.format("Paged Customer %02d", i)).build())
+                .toList());
+
+        Page<CustomerDTO> secondPage = customerController.listCustomers(2, 10);
+
+        assertThat(secondPage.getTotalElements()).isEqualTo(33);
+        // Albert and Felix sort ahead of them, so the second page of ten starts at 08
+        assertThat(secondPage.getContent()).extracting(CustomerDTO::getId)
+                .containsExactlyElementsOf(saved.subList(8, 18).stream().map(Customer::getId).toList());
+    }
+
+    @Rollback
+    @Transactional
+    @Test
+    void testListCustomersAfterCursor() {
+        // customers without a name still show up in keyset mode, ahead of the named ones as in offset mode
+        customerRepository.save(Customer.builder().build());
+        customerRepository.save(Customer.builder().build());
+        customerRepository.flush();
+
+        List<UUID> keysetIds = new ArrayList<>();
+        KeysetCursor cursor = KeysetCursor.FIRST;
+        int pages = 0;
+
+        while (cursor != null) {
+            KeysetPage<CustomerDTO> page = customerController.listCustomersAfter(cursor, 2);
+
+            page.getContent().forEach(customerDTO -> keysetIds.add(customerDTO.getId()));
+            cursor = page.getNextCursor() == null ? null : KeysetCursor.valueOf(page.getNextCursor());
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(keysetIds).containsExactlyElementsOf(customerController.listCustomers(1, 10).getContent()
+                .stream().map(CustomerDTO::getId).toList());
+    }
+
+    @Test
+    void testListCustomersAfterCursorNonPositivePageSize() {
+        for (int pageSize : new int[]{0, -5}) {
+            KeysetPage<CustomerDTO> page = customerController.listCustomersAfter(KeysetCursor.FIRST, pageSize);
+
+            assertThat(page.getContent().size()).isEqualTo(3);
+            assertThat(page.getNextCursor()).isNull();
+        }
+    }
+
+    @Test
+    void testExportCustomers() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        customerController.exportCustomers().getBody().writeTo(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines().count()).isEqualTo(customerRepository.count());
     }
 
     @Test
     void testCustomerIdNotFound() {
         assertThrows(NotFoundException.class,
-                () -> customerController.getCustomer(UUID.randomUUID()));
+                () -> customerController.getCustomer(UUID.randomUUID(), webRequest()));
     }
 
     @Transactional
@@ -124,7 +248,11 @@ class CustomerControllerIT {
     void testEmptyList() {
         customerRepository.deleteAll();
 
-        List<CustomerDTO> customerDTO = customerController.listCustomers();
-        assertThat(customerDTO.size()).isEqualTo(0);
+        Page<CustomerDTO> customerDTO = customerController.listCustomers(null, null);
+        assertThat(customerDTO.getContent().size()).isEqualTo(0);
+    }
+
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
     }
-}
\ No newline at end of file
+}
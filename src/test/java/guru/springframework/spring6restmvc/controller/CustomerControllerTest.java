@@ -3,6 +3,7 @@ package guru.springframework.spring6restmvc.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import guru.springframework.spring6restmvc.config.SpringSecConfig;
 import guru.springframework.spring6restmvc.model.CustomerDTO;
+import guru.springframework.spring6restmvc.model.KeysetPage;
 import guru.springframework.spring6restmvc.services.CustomerService;
 import guru.springframework.spring6restmvc.services.CustomerServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,17 +16,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.verify;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -52,7 +57,7 @@ class CustomerControllerTest {
     CustomerServiceImpl customerServiceImpl;
 
     public static final String USERNAME = "user1";
-    public static final String PASSWORD = "password1";
+    public static final String PASSWORD = "password";
 
     @BeforeEach
     void setUp() {
@@ -61,7 +66,7 @@ class CustomerControllerTest {
 
     @Test
     void testPatchCustomer() throws Exception {
-        CustomerDTO customer = customerServiceImpl.listCustomers().getFirst();
+        CustomerDTO customer = customerServiceImpl.listCustomers(1, 25).getContent().getFirst();
 
         Map<String, Object> customerMap = new HashMap<>();
         customerMap.put("customerName", "New Name");
@@ -81,7 +86,7 @@ class CustomerControllerTest {
 
     @Test
     void testDeleteCustomer() throws Exception {
-        CustomerDTO customer = customerServiceImpl.listCustomers().getFirst();
+        CustomerDTO customer = customerServiceImpl.listCustomers(1, 25).getContent().getFirst();
 
         given(customerService.deleteById(any())).willReturn(true);
 
@@ -98,7 +103,7 @@ class CustomerControllerTest {
 
     @Test
     void testUpdateCustomer() throws Exception {
-        CustomerDTO customer = customerServiceImpl.listCustomers().getFirst();
+        CustomerDTO customer = customerServiceImpl.listCustomers(1, 25).getContent().getFirst();
 
         given(customerService.updateCustomerById(any(), any())).willReturn(Optional.of(CustomerDTO.builder()
                 .build()));
@@ -115,11 +120,11 @@ class CustomerControllerTest {
 
     @Test
     void testCreateNewCustomer() throws Exception {
-        CustomerDTO customer = customerServiceImpl.listCustomers().getFirst();
+        CustomerDTO customer = customerServiceImpl.listCustomers(1, 25).getContent().getFirst();
         customer.setId(null);
         customer.setVersion(null);
 
-        given(customerService.saveNewCustomer(any(CustomerDTO.class))).willReturn(customerServiceImpl.listCustomers().get(1));
+        given(customerService.saveNewCustomer(any(CustomerDTO.class))).willReturn(customerServiceImpl.listCustomers(1, 25).getContent().get(1));
 
         mockMvc.perform(post(CustomerController.CUSTOMER_PATH)
                         .with(httpBasic(USERNAME, PASSWORD))
@@ -133,14 +138,59 @@ class CustomerControllerTest {
 
     @Test
     void listAllCustomers() throws Exception {
-        given(customerService.listCustomers()).willReturn(customerServiceImpl.listCustomers());
+        given(customerService.listCustomers(any(), any())).willReturn(customerServiceImpl.listCustomers(1, 25));
 
         mockMvc.perform(get(CustomerController.CUSTOMER_PATH)
                         .with(httpBasic(USERNAME, PASSWORD))
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.length()", is(3)));
+                .andExpect(jsonPath("$.content.length()", is(3)));
+    }
+
+    @Test
+    void listCustomersAfterCursor() throws Exception {
+        KeysetPage<CustomerDTO> keysetPage = KeysetPage.<CustomerDTO>builder()
+                .content(customerServiceImpl.listCustomers(1, 25).getContent())
+                .nextCursor("next")
+                .build();
+
+        given(customerService.listCustomersAfter(any(), any())).willReturn(keysetPage);
+
+        mockMvc.perform(get(CustomerController.CUSTOMER_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .queryParam("after", "")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(3)))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    void exportCustomers() throws Exception {
+        List<CustomerDTO> customers = customerServiceImpl.listCustomers(1, 25).getContent();
+
+        willAnswer(invocation -> {
+            Consumer<CustomerDTO> consumer = invocation.getArgument(0);
+            customers.forEach(consumer);
+            return null;
+        }).given(customerService).exportCustomers(any());
+
+        MvcResult mvcResult = mockMvc.perform(get(CustomerController.CUSTOMER_EXPORT_PATH)
+                        .with(httpBasic(USERNAME, PASSWORD)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+
+        assertThat(lines).hasSize(customers.size());
+        assertThat(objectMapper.readValue(lines.getFirst(), CustomerDTO.class).getId())
+                .isEqualTo(customers.getFirst().getId());
     }
 
     @Test
@@ -155,7 +205,7 @@ class CustomerControllerTest {
 
     @Test
     void getCustomerById() throws Exception {
-        CustomerDTO testCustomer = customerServiceImpl.listCustomers().getFirst();
+        CustomerDTO testCustomer = customerServiceImpl.listCustomers(1, 25).getContent().getFirst();
 
         given(customerService.getCustomerById(any(UUID.class))).willReturn(Optional.of(testCustomer));
 
@@ -168,4 +218,13 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$.customerName", is(testCustomer.getCustomerName())));
     }
 
-}
\ No newline at end of file
+    @Test
+    void getCustomerByIdNotModified() throws Exception {
+        given(customerService.getCustomerVersion(any(UUID.class))).willReturn(Optional.of(1));
+
+        mockMvc.perform(get(CustomerController.CUSTOMER_PATH_ID, UUID.randomUUID())
+                        .with(httpBasic(USERNAME, PASSWORD))
+                        .header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,134 @@
+package guru.springframework.spring6restmvc.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import guru.springframework.spring6restmvc.config.BulkheadDataSource;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link #CLIENTS} concurrent clients, each sending {@link #REQUESTS_PER_CLIENT} filtered listing requests that all
+ * reach the database, against a real Tomcat serving on virtual threads. Prints latency percentiles. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class VirtualThreadLoadBenchmarkTest {
+
+    static final int CLIENTS = 2000;
+    static final int REQUESTS_PER_CLIENT = 5;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void listBeersUnderConcurrentLoad() throws Exception {
+        assertThat(dataSource).isInstanceOf(BulkheadDataSource.class);
+
+        String authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (BeerControllerTest.USERNAME + ":" + BeerControllerTest.PASSWORD).getBytes(StandardCharsets.UTF_8));
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .executor(clients)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build()) {
+
+            // warm up connections, caches and the JIT before measuring
+            for (int i = 0; i < 200; i++) {
+                httpClient.send(listRequest(authorization), HttpResponse.BodyHandlers.discarding());
+            }
+
+            List<Future<?>> running = new ArrayList<>();
+
+            for (int client = 0; client < CLIENTS; client++) {
+                running.add(clients.submit(() -> {
+                    start.await();
+
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        long begin = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(listRequest(authorization),
+                                HttpResponse.BodyHandlers.discarding());
+                        latencies.add(System.nanoTime() - begin);
+
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+
+            for (Future<?> future : running) {
+                future.get();
+            }
+
+            long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+
+            List<Long> sorted = latencies.stream().sorted().toList();
+
+            System.out.printf("%,d clients x %,d requests in %,d ms (%,.0f req/s), %,d failed%n", CLIENTS,
+                    REQUESTS_PER_CLIENT, elapsedMillis, sorted.size() * 1000.0 / Math.max(elapsedMillis, 1),
+                    failures.get());
+            System.out.printf("p50 %,d ms, p95 %,d ms, p99 %,d ms, max %,d ms%n", percentileMillis(sorted, 50),
+                    percentileMillis(sorted, 95), percentileMillis(sorted, 99), sorted.getLast() / 1_000_000);
+
+            assertThat(failures.get()).isZero();
+            assertThat(sorted).hasSize(CLIENTS * REQUESTS_PER_CLIENT);
+            assertThat(((BulkheadDataSource) dataSource).availablePermits())
+                    .isEqualTo(dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize());
+        }
+    }
+
+    private HttpRequest listRequest(String authorization) {
+        BeerStyle beerStyle = BeerStyle.values()[ThreadLocalRandom.current().nextInt(BeerStyle.values().length)];
+
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + BeerController.BEER_PATH
+                        + "?beerStyle=" + beerStyle.name() + "&pageSize=25&pageNumber="
+                        + (ThreadLocalRandom.current().nextInt(4) + 1)))
+                .header("Authorization", authorization)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private static long percentileMillis(List<Long> sortedNanos, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.size()) - 1;
+
+        return sortedNanos.get(Math.max(index, 0)) / 1_000_000;
+    }
+}
@@ -0,0 +1,56 @@
+package guru.springframework.spring6restmvc.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void testVersionAndVariant() {
+        UUID uuid = TimeOrderedUuidGenerator.nextUuid();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void testTimestampPrefix() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeOrderedUuidGenerator.nextUuid();
+        long after = System.currentTimeMillis();
+
+        // the counter may run a few milliseconds ahead of the clock when earlier tests generated many ids
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, after + 100);
+    }
+
+    @Test
+    void testStrictlyIncreasing() {
+        List<UUID> uuids = new ArrayList<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            uuids.add(TimeOrderedUuidGenerator.nextUuid());
+        }
+
+        for (int i = 1; i < uuids.size(); i++) {
+            assertThat(uuids.get(i)).isGreaterThan(uuids.get(i - 1));
+        }
+    }
+
+    @Test
+    void testUniqueAcrossThreads() {
+        Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 200_000).parallel()
+                .forEach(i -> uuids.add(TimeOrderedUuidGenerator.nextUuid()));
+
+        assertThat(uuids).hasSize(200_000);
+    }
+}
@@ -0,0 +1,78 @@
+package guru.springframework.spring6restmvc.entities;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert time for {@link #ROWS} rows keyed by random v4 UUIDs (the previous {@code UUIDGenerator}) against
+ * {@link TimeOrderedUuidGenerator}, into a {@code binary(16)} primary key on H2 in MySQL mode. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class UuidInsertBenchmarkTest {
+
+    static final int ROWS = 500_000;
+    static final int BATCH_SIZE = 1000;
+
+    @Test
+    void compareRandomWithTimeOrderedIds() throws SQLException {
+        insertMillis("warmup_random", UUID::randomUUID);
+        insertMillis("warmup_ordered", TimeOrderedUuidGenerator::nextUuid);
+
+        long randomMillis = insertMillis("random_ids", UUID::randomUUID);
+        long orderedMillis = insertMillis("ordered_ids", TimeOrderedUuidGenerator::nextUuid);
+
+        System.out.printf("Random v4 ids:     %,d ms for %,d rows%n", randomMillis, ROWS);
+        System.out.printf("Time-ordered ids:  %,d ms for %,d rows%n", orderedMillis, ROWS);
+
+        assertThat(orderedMillis).isLessThan(randomMillis);
+    }
+
+    private long insertMillis(String table, Supplier<UUID> ids) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + table + ";MODE=MySQL")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table " + table + " (id binary(16) not null primary key, " +
+                        "beer_order_id binary(16) not null, order_quantity integer)");
+            }
+
+            connection.setAutoCommit(false);
+            long start = System.nanoTime();
+
+            try (PreparedStatement insert = connection.prepareStatement("insert into " + table +
+                    " (id, beer_order_id, order_quantity) values (?, ?, ?)")) {
+
+                for (int i = 1; i <= ROWS; i++) {
+                    insert.setBytes(1, toBytes(ids.get()));
+                    insert.setBytes(2, toBytes(ids.get()));
+                    insert.setInt(3, i);
+                    insert.addBatch();
+
+                    if (i % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+            }
+
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,252 @@
+package guru.springframework.spring6restmvc.repositories;
+
+import guru.springframework.spring6restmvc.bootstrap.BootstrapData;
+import guru.springframework.spring6restmvc.entities.Category;
+import guru.springframework.spring6restmvc.entities.Customer;
+import guru.springframework.spring6restmvc.model.BeerSortOrder;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.model.KeysetCursor;
+import guru.springframework.spring6restmvc.services.BeerCsvServiceImpl;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAIN for the SQL Hibernate actually sends for each {@link BeerRepository} access path, captured by
+ * {@link CapturingStatementInspector} while the repository method runs, and checked against the index declared for it
+ * on the entities (and created for MySQL by the V7 and V9 migrations). Two kinds of query are left out on purpose:
+ * catalog reads ({@code findAllNameEntries}, {@code streamAllBy}) read every row by design, and
+ * {@code like '%term%'} cannot use a b-tree index, which is why name search goes through the in-memory name index
+ * first. Descending sorts are left out too: H2 only reads an index forwards, while MySQL 8 scans the same index
+ * backwards.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "guru.springframework.spring6restmvc.repositories.BeerRepositoryExplainTest$CapturingStatementInspector")
+@Import({BootstrapData.class, BeerCsvServiceImpl.class})
+class BeerRepositoryExplainTest {
+
+    static final KeysetCursor AFTER_M = new KeysetCursor("M", new UUID(0, 0));
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testListingSortedByName() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtoSlice(null, false, firstPage(BeerSortOrder.DEFAULT)));
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_NAME_ID", "index sorted");
+    }
+
+    @Test
+    void testListingByStyle() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtoSlice(
+                BeerSpecifications.beerStyleIn(List.of(BeerStyle.IPA)), false, firstPage(BeerSortOrder.DEFAULT)));
+
+        // H2 sorts the style's rows after the seek; MySQL reads them in (beer_name, id) order off the same index
+        assertThat(plan).contains("PUBLIC.IX_BEER_STYLE_NAME_ID: BEER_STYLE =");
+    }
+
+    @Test
+    void testListingByStyles() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtoSlice(
+                BeerSpecifications.beerStyleIn(List.of(BeerStyle.IPA, BeerStyle.PALE_ALE)), false,
+                firstPage(BeerSortOrder.DEFAULT)));
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_STYLE_NAME_ID: BEER_STYLE IN(");
+    }
+
+    @Test
+    void testListingByPriceRange() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtoSlice(
+                BeerSpecifications.matching(null, null, new BigDecimal("10.00"), new BigDecimal("12.00")), false,
+                firstPage(new BeerSortOrder(BeerSortOrder.Key.PRICE, false))));
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_PRICE_ID: PRICE >=", "PRICE <=", "index sorted");
+    }
+
+    @Test
+    void testListingSortedByPrice() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtoSlice(null, false,
+                firstPage(new BeerSortOrder(BeerSortOrder.Key.PRICE, false))));
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_PRICE_ID", "index sorted");
+    }
+
+    @Test
+    void testListingSortedByUpdateDate() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtoSlice(null, false,
+                firstPage(new BeerSortOrder(BeerSortOrder.Key.UPDATE_DATE, false))));
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_UPDATE_DATE_ID", "index sorted");
+    }
+
+    @Test
+    void testListingSortedByStyle() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtoSlice(null, false,
+                firstPage(new BeerSortOrder(BeerSortOrder.Key.BEER_STYLE, false))));
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_STYLE_NAME_ID", "index sorted");
+    }
+
+    @Test
+    void testCountByStyle() {
+        // a full first page leaves the total unknown, so the listing is followed by its count
+        List<String> plans = explain(() -> beerRepository.findBeerDtos(
+                BeerSpecifications.beerStyleIn(List.of(BeerStyle.IPA)), false, PageRequest.of(0, 1)));
+
+        assertThat(plans).hasSize(2);
+        assertThat(plans.get(1)).contains("COUNT(", "PUBLIC.IX_BEER_STYLE_NAME_ID: BEER_STYLE =");
+    }
+
+    @Test
+    void testStyleCounts() {
+        // the facet reads every beer, but from the narrower style index and already grouped in index order
+        String plan = explainOnly(() -> beerRepository.findStyleCounts());
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_STYLE_NAME_ID", "group sorted");
+    }
+
+    @Test
+    void testByIds() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtosByIdIn(List.of(new UUID(0, 0), new UUID(0, 1))));
+
+        assertThat(plan).contains("PUBLIC.PRIMARY_KEY_1: ID IN(");
+    }
+
+    @Test
+    void testById() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtoById(new UUID(0, 0)));
+
+        assertThat(plan).contains("PUBLIC.PRIMARY_KEY_1: ID =");
+    }
+
+    @Test
+    void testSeekAfter() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtosAfter(null, false, AFTER_M, 26));
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_NAME_ID: BEER_NAME >=", "index sorted");
+    }
+
+    @Test
+    void testSeekByStyleAfter() {
+        String plan = explainOnly(() -> beerRepository.findBeerDtosAfter(
+                BeerSpecifications.beerStyleIn(List.of(BeerStyle.IPA)), false, AFTER_M, 26));
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_STYLE_NAME_ID: BEER_STYLE =", "AND BEER_NAME >=");
+    }
+
+    @Test
+    void testIdByUpc() {
+        String plan = explainOnly(() -> beerRepository.findIdByUpc("0631234200036"));
+
+        assertThat(plan).contains("PUBLIC.UX_BEER_UPC_INDEX_1: UPC =");
+    }
+
+    @Test
+    void testBeersOfCategory() {
+        UUID categoryId = entityManager.persistFlushFind(Category.builder()
+                .description("Explained")
+                .build()).getId();
+        entityManager.clear();
+
+        String plan = explainOnly(() -> entityManager.find(Category.class, categoryId).getBeers().size(),
+                "BEER_CATEGORY");
+
+        assertThat(plan).contains("PUBLIC.IX_BEER_CATEGORY_CATEGORY_BEER: CATEGORY_ID =");
+    }
+
+    @Test
+    void testOrdersOfCustomer() {
+        UUID customerId = customerRepository.findAll().getFirst().getId();
+        entityManager.clear();
+
+        String plan = explainOnly(() -> entityManager.find(Customer.class, customerId).getBeerOrders().size(),
+                "BEER_ORDER");
+
+        // H2 adds its own index for the customer_id foreign key; on MySQL ix_beer_order_customer_created serves it
+        assertThat(plan).containsPattern("PUBLIC\\.(IX_BEER_ORDER_CUSTOMER_CREATED|FK\\w+): CUSTOMER_ID =");
+    }
+
+    private static Pageable firstPage(BeerSortOrder sortOrder) {
+        return PageRequest.of(0, 25, Sort.by(Sort.Direction.ASC, sortOrder.properties().toArray(new String[0])));
+    }
+
+    private String explainOnly(Runnable access) {
+        List<String> plans = explain(access);
+
+        assertThat(plans).hasSize(1);
+
+        return plans.getFirst();
+    }
+
+    /**
+     * The plan of the one statement {@code access} sends against {@code table}, ignoring the loads around it.
+     */
+    private String explainOnly(Runnable access, String table) {
+        List<String> plans = explain(access).stream()
+                .filter(plan -> plan.contains("FROM \"PUBLIC\".\"" + table + "\""))
+                .toList();
+
+        assertThat(plans).hasSize(1);
+
+        return plans.getFirst();
+    }
+
+    private List<String> explain(Runnable access) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        access.run();
+
+        List<String> statements = List.copyOf(CapturingStatementInspector.STATEMENTS);
+        assertThat(statements).isNotEmpty();
+
+        return statements.stream()
+                .map(this::explain)
+                .toList();
+    }
+
+    private String explain(String sql) {
+        // H2 picks the plan when the statement is prepared, so the bind values make no difference to it
+        return jdbcTemplate.query("explain " + sql,
+                ps -> {
+                    for (int i = 1; i <= ps.getParameterMetaData().getParameterCount(); i++) {
+                        ps.setObject(i, null);
+                    }
+                },
+                rs -> rs.next() ? rs.getString(1) : null);
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.mappers.BeerMapper;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap allocated per 1000 row listing request: managed entities mapped through {@link BeerMapper} (the previous
+ * read path) against the read-only constructor expression projection. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BeerListingAllocationBenchmarkTest {
+
+    static final int WARMUP = 20;
+    static final int ITERATIONS = 100;
+
+    @Autowired
+    BeerServiceJPA beerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerMapper beerMapper;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void compareAllocationPerRequest() {
+        PageRequest pageRequest = PageRequest.of(0, 1000, Sort.by(Sort.Order.asc("beerName")));
+
+        long entityBytes = allocatedPerRequest(() -> transactionTemplate.execute(status ->
+                beerRepository.findAll(pageRequest).map(beerMapper::beerToBeerDto)));
+
+        long projectionBytes = allocatedPerRequest(() -> beerService.listBeers(null, null, null, null, true, null, 1, 1000));
+
+        System.out.printf("Entity + mapper:  %,d bytes/request%n", entityBytes);
+        System.out.printf("DTO projection:   %,d bytes/request%n", projectionBytes);
+
+        assertThat(projectionBytes).isLessThan(entityBytes);
+    }
+
+    private long allocatedPerRequest(Supplier<Page<BeerDTO>> request) {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(request.get().getContent()).hasSize(1000);
+        }
+
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.get();
+        }
+
+        return (threadMXBean.getCurrentThreadAllocatedBytes() - before) / ITERATIONS;
+    }
+}
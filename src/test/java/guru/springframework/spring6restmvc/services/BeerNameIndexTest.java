@@ -0,0 +1,117 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerNameEntry;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class BeerNameIndexTest {
+
+    BeerRepository beerRepository = mock(BeerRepository.class);
+
+    BeerNameIndex beerNameIndex;
+
+    UUID galaxyCat = UUID.randomUUID();
+    UUID crank = UUID.randomUUID();
+    UUID sunshineIpa = UUID.randomUUID();
+    UUID hazyIpa = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        given(beerRepository.findAllNameEntries()).willReturn(List.of(
+                new BeerNameEntry(galaxyCat, "Galaxy Cat", BeerStyle.PALE_ALE),
+                new BeerNameEntry(crank, "Crank", BeerStyle.PALE_ALE),
+                new BeerNameEntry(sunshineIpa, "Sunshine IPA", BeerStyle.IPA),
+                new BeerNameEntry(hazyIpa, "Hazy ipa", BeerStyle.PALE_ALE)));
+
+        beerNameIndex = new BeerNameIndex(beerRepository);
+        ReflectionTestUtils.setField(beerNameIndex, "enabled", true);
+    }
+
+    @Test
+    void testSearchIgnoresCaseAndOrdersByName() {
+        assertThat(beerNameIndex.search("iPa", null)).containsExactly(hazyIpa, sunshineIpa);
+    }
+
+    @Test
+    void testSearchByNameAndStyle() {
+        assertThat(beerNameIndex.search("ipa", List.of(BeerStyle.IPA))).containsExactly(sunshineIpa);
+    }
+
+    @Test
+    void testSearchShortTerm() {
+        assertThat(beerNameIndex.search("a", null)).containsExactly(crank, galaxyCat, hazyIpa, sunshineIpa);
+    }
+
+    @Test
+    void testSearchGramsOutOfOrderIsNotAMatch() {
+        assertThat(beerNameIndex.search("catgal", null)).isEmpty();
+    }
+
+    @Test
+    void testPutAndRemove() {
+        beerNameIndex.search("ipa", null);
+
+        UUID newIpa = UUID.randomUUID();
+        beerNameIndex.put(newIpa, "Another IPA", BeerStyle.IPA);
+        beerNameIndex.put(hazyIpa, "Hazy Lager", BeerStyle.LAGER);
+        beerNameIndex.remove(sunshineIpa);
+
+        assertThat(beerNameIndex.search("ipa", null)).containsExactly(newIpa);
+        assertThat(beerNameIndex.search("lager", List.of(BeerStyle.LAGER))).containsExactly(hazyIpa);
+    }
+
+    @Test
+    void testSearchOrdersLikeTheDatabase() {
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID high = UUID.fromString("ffffffff-0000-0000-0000-000000000001");
+        UUID lowerCase = UUID.randomUUID();
+
+        given(beerRepository.findAllNameEntries()).willReturn(List.of(
+                new BeerNameEntry(high, "Twin IPA", BeerStyle.IPA),
+                new BeerNameEntry(lowerCase, "aged ipa", BeerStyle.IPA),
+                new BeerNameEntry(low, "Twin IPA", BeerStyle.IPA)));
+
+        // case-insensitive on the name, unsigned on the id
+        assertThat(beerNameIndex.search("ipa", null)).containsExactly(lowerCase, low, high);
+    }
+
+    @Test
+    void testReloadPicksUpOtherWriters() {
+        beerNameIndex.search("ipa", null);
+
+        UUID newIpa = UUID.randomUUID();
+        given(beerRepository.findAllNameEntries()).willReturn(List.of(
+                new BeerNameEntry(newIpa, "Another IPA", BeerStyle.IPA),
+                new BeerNameEntry(sunshineIpa, "Sunshine IPA", BeerStyle.IPA)));
+
+        beerNameIndex.reload();
+
+        assertThat(beerNameIndex.search("ipa", null)).containsExactly(newIpa, sunshineIpa);
+    }
+
+    @Test
+    void testReloadBeforeFirstSearchDoesNothing() {
+        beerNameIndex.reload();
+
+        verify(beerRepository, never()).findAllNameEntries();
+    }
+
+    @Test
+    void testWildcardTermsAreLeftToTheDatabase() {
+        assertThat(beerNameIndex.canServe("IPA")).isTrue();
+        assertThat(beerNameIndex.canServe("I%A")).isFalse();
+        assertThat(beerNameIndex.canServe("I_A")).isFalse();
+    }
+}
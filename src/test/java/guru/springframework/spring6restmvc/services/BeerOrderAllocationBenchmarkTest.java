@@ -0,0 +1,128 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * One allocation run over {@link #ORDERS} orders of {@link #LINES_PER_ORDER} lines each, spread over {@link #BEERS}
+ * beers that only have stock for part of the demand. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "beer.order.allocation.enabled=false")
+class BeerOrderAllocationBenchmarkTest {
+
+    static final int BEERS = 1000;
+    static final int ORDERS = 1000;
+    static final int LINES_PER_ORDER = 100;
+    static final int STOCK_PER_BEER = 200;
+
+    @Autowired
+    BeerOrderAllocator beerOrderAllocator;
+
+    @Autowired
+    BeerOrderServiceJPA beerOrderService;
+
+    @Autowired
+    BeerServiceJPA beerService;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void allocateOneHundredThousandLines() {
+        List<UUID> beerIds = beerService.saveNewBeers(IntStream.range(0, BEERS)
+                .mapToObj(i -> BeerDTO.builder()
+                        .beerName("Allocation Bench " + i)
+                        .beerStyle(BeerStyle.LAGER)
+                        .upc("allocation-bench-" + i)
+                        .quantityOnHand(STOCK_PER_BEER)
+                        .price(new BigDecimal("7.99"))
+                        .build())
+                .toList());
+
+        UUID customerId = customerRepository.findAll().getFirst().getId();
+        Random random = new Random(42);
+        List<UUID> orderIds = new ArrayList<>();
+        long demand = 0;
+
+        for (int order = 0; order < ORDERS; order++) {
+            List<BeerOrderLineDTO> lines = new ArrayList<>();
+
+            for (int line = 0; line < LINES_PER_ORDER; line++) {
+                int orderQuantity = random.nextInt(5) + 1;
+                demand += orderQuantity;
+                lines.add(BeerOrderLineDTO.builder()
+                        .beerId(beerIds.get(random.nextInt(BEERS)))
+                        .orderQuantity(orderQuantity)
+                        .build());
+            }
+
+            orderIds.add(beerOrderService.placeOrder(BeerOrderDTO.builder()
+                    .customerId(customerId)
+                    .beerOrderLines(lines)
+                    .build()).orElseThrow().getId());
+        }
+
+        try {
+            long begin = System.nanoTime();
+            long allocated = beerOrderAllocator.allocate();
+            long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+
+            int lines = ORDERS * LINES_PER_ORDER;
+            System.out.printf("%,d lines (%,d units wanted, %,d in stock): %,d units allocated in %,d ms " +
+                            "(%,.0f lines/s)%n", lines, demand, (long) BEERS * STOCK_PER_BEER, allocated,
+                    elapsedMillis, lines * 1000.0 / Math.max(elapsedMillis, 1));
+
+            long allocatedOnLines = transactionTemplate.execute(status -> entityManager.createQuery(
+                            "select coalesce(sum(l.quantityAllocated), 0) from BeerOrderLine l " +
+                                    "where l.beer.id in :beerIds", Long.class)
+                    .setParameter("beerIds", beerIds)
+                    .getSingleResult());
+            long stockLeft = transactionTemplate.execute(status -> entityManager.createQuery(
+                            "select sum(b.quantityOnHand) from Beer b where b.id in :beerIds", Long.class)
+                    .setParameter("beerIds", beerIds)
+                    .getSingleResult());
+
+            // every unit taken off a beer landed on a line, and no beer with open lines kept stock back
+            assertThat(allocatedOnLines).isEqualTo(allocated);
+            assertThat(stockLeft).isEqualTo((long) BEERS * STOCK_PER_BEER - allocated);
+            assertThat(beerOrderAllocator.allocate()).isZero();
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.createQuery("delete from BeerOrderLine l where l.beerOrder.id in :orderIds")
+                        .setParameter("orderIds", orderIds)
+                        .executeUpdate();
+                entityManager.createQuery("delete from BeerOrder o where o.id in :orderIds")
+                        .setParameter("orderIds", orderIds)
+                        .executeUpdate();
+                entityManager.createQuery("delete from Beer b where b.id in :beerIds")
+                        .setParameter("beerIds", beerIds)
+                        .executeUpdate();
+            });
+        }
+    }
+}
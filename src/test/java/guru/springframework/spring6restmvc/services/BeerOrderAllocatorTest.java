@@ -0,0 +1,164 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// allocation commits on its own, so the data is committed too and removed after each test; write-behind is on, with
+// the scheduled flush pushed out of the way, to check that unwritten sales are not allocated
+@SpringBootTest(properties = {
+        "beer.inventory.write-behind.enabled=true",
+        "beer.inventory.write-behind.flush-interval-ms=3600000"
+})
+class BeerOrderAllocatorTest {
+
+    @Autowired
+    BeerOrderAllocator beerOrderAllocator;
+
+    @Autowired
+    BeerOrderServiceJPA beerOrderService;
+
+    @Autowired
+    BeerServiceJPA beerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    UUID customerId;
+
+    List<UUID> beerIds = new ArrayList<>();
+    List<UUID> beerOrderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        customerId = customerRepository.findAll().getFirst().getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("delete from BeerOrderLine l where l.beerOrder.id in :beerOrderIds")
+                    .setParameter("beerOrderIds", beerOrderIds)
+                    .executeUpdate();
+            entityManager.createQuery("delete from BeerOrder o where o.id in :beerOrderIds")
+                    .setParameter("beerOrderIds", beerOrderIds)
+                    .executeUpdate();
+        });
+
+        beerIds.forEach(beerService::deleteById);
+    }
+
+    @Test
+    void testOldestLinesAreFilledFirst() {
+        UUID beerId = newBeer("Allocation Ale", 10);
+
+        UUID first = placeOrder(beerId, 4);
+        UUID second = placeOrder(beerId, 5);
+        UUID third = placeOrder(beerId, 3);
+
+        assertThat(beerOrderAllocator.allocate()).isEqualTo(10);
+
+        assertThat(allocated(first)).isEqualTo(4);
+        assertThat(allocated(second)).isEqualTo(5);
+        assertThat(allocated(third)).isEqualTo(1);
+        assertThat(beerRepository.findQuantityOnHandById(beerId)).contains(0);
+
+        // restocking tops up the partly allocated line, and only by what it still wants
+        transactionTemplate.executeWithoutResult(status ->
+                beerRepository.adjustQuantityOnHand(beerId, 5, LocalDateTime.now()));
+
+        assertThat(beerOrderAllocator.allocate()).isEqualTo(2);
+
+        assertThat(allocated(third)).isEqualTo(3);
+        assertThat(beerRepository.findQuantityOnHandById(beerId)).contains(3);
+    }
+
+    @Test
+    void testBeersAreAllocatedIndependently() {
+        UUID stocked = newBeer("Stocked Ale", 6);
+        UUID soldOut = newBeer("Sold Out Ale", 0);
+
+        UUID stockedOrder = placeOrder(stocked, 6);
+        UUID soldOutOrder = placeOrder(soldOut, 6);
+
+        assertThat(beerOrderAllocator.allocate()).isEqualTo(6);
+
+        assertThat(allocated(stockedOrder)).isEqualTo(6);
+        assertThat(allocated(soldOutOrder)).isZero();
+
+        // nothing left to do: the stocked beer has no open lines, the sold out one no stock
+        assertThat(beerOrderAllocator.allocate()).isZero();
+    }
+
+    @Test
+    void testUnwrittenSalesAreNotAllocated() {
+        UUID beerId = newBeer("Write Behind Ale", 10);
+
+        assertThat(beerService.adjustInventory(beerId, -4)).isTrue();
+
+        UUID beerOrderId = placeOrder(beerId, 10);
+
+        assertThat(beerOrderAllocator.allocate()).isEqualTo(6);
+
+        assertThat(allocated(beerOrderId)).isEqualTo(6);
+        assertThat(beerRepository.findQuantityOnHandById(beerId)).contains(0);
+    }
+
+    private UUID newBeer(String beerName, int quantityOnHand) {
+        UUID beerId = beerService.saveNewBeer(BeerDTO.builder()
+                .beerName(beerName)
+                .beerStyle(BeerStyle.ALE)
+                .upc(beerName.toLowerCase().replace(' ', '-'))
+                .quantityOnHand(quantityOnHand)
+                .price(new BigDecimal("8.99"))
+                .build()).getId();
+
+        beerIds.add(beerId);
+        return beerId;
+    }
+
+    private UUID placeOrder(UUID beerId, int orderQuantity) {
+        UUID beerOrderId = beerOrderService.placeOrder(BeerOrderDTO.builder()
+                .customerId(customerId)
+                .beerOrderLines(List.of(BeerOrderLineDTO.builder()
+                        .beerId(beerId)
+                        .orderQuantity(orderQuantity)
+                        .build()))
+                .build()).orElseThrow().getId();
+
+        beerOrderIds.add(beerOrderId);
+        return beerOrderId;
+    }
+
+    private int allocated(UUID beerOrderId) {
+        return beerOrderService.getBeerOrderById(beerOrderId).orElseThrow()
+                .getBeerOrderLines().getFirst().getQuantityAllocated();
+    }
+}
@@ -0,0 +1,163 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.entities.BeerOrderShipment;
+import guru.springframework.spring6restmvc.model.BeerOrderDTO;
+import guru.springframework.spring6restmvc.model.BeerOrderLineDTO;
+import guru.springframework.spring6restmvc.repositories.BeerOrderRepository;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import guru.springframework.spring6restmvc.repositories.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class BeerOrderServiceJPATest {
+
+    @Autowired
+    BeerOrderServiceJPA beerOrderService;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    EntityManager entityManager;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Transactional
+    @Test
+    void testPlaceOrderBatchesLines() {
+        BeerOrderDTO order = newOrder(200);
+        entityManager.clear();
+        statistics.clear();
+
+        BeerOrderDTO saved = beerOrderService.placeOrder(order).orElseThrow();
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getBeerOrderLines()).hasSize(200);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(201);
+        // all 200 beers resolved by a single findAllById
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+        // customer, beers, order and the lines in JDBC batches of 50, not one statement per line
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+
+        entityManager.clear();
+
+        assertThat(beerOrderService.getBeerOrderById(saved.getId())).get()
+                .satisfies(found -> {
+                    assertThat(found.getCustomerId()).isEqualTo(order.getCustomerId());
+                    assertThat(found.getBeerOrderLines()).hasSize(200)
+                            .allSatisfy(line -> assertThat(line.getQuantityAllocated()).isZero());
+                });
+    }
+
+    @Transactional
+    @Test
+    void testGetOrderByIdIsOneStatementWhateverTheLineCount() {
+        for (int lines : new int[]{1, 200}) {
+            UUID orderId = beerOrderService.placeOrder(newOrder(lines)).orElseThrow().getId();
+            beerOrderRepository.findById(orderId).orElseThrow()
+                    .setBeerOrderShipment(BeerOrderShipment.builder().trackingNumber("track-" + lines).build());
+            entityManager.flush();
+            entityManager.clear();
+            statistics.clear();
+
+            BeerOrderDTO found = beerOrderService.getBeerOrderById(orderId).orElseThrow();
+
+            assertThat(found.getCustomerName()).isNotNull();
+            assertThat(found.getTrackingNumber()).isEqualTo("track-" + lines);
+            assertThat(found.getBeerOrderLines()).hasSize(lines)
+                    .allSatisfy(line -> assertThat(line.getBeerName()).isNotNull());
+            // order, customer, shipment, lines and their beers all come back in the same join
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Transactional
+    @Test
+    void testPlaceOrderRepeatedBeer() {
+        UUID beerId = beerRepository.findAll().getFirst().getId();
+
+        BeerOrderDTO order = BeerOrderDTO.builder()
+                .customerId(customerRepository.findAll().getFirst().getId())
+                .beerOrderLines(List.of(
+                        BeerOrderLineDTO.builder().beerId(beerId).orderQuantity(6).build(),
+                        BeerOrderLineDTO.builder().beerId(beerId).orderQuantity(12).build()))
+                .build();
+
+        assertThat(beerOrderService.placeOrder(order)).get()
+                .satisfies(saved -> assertThat(saved.getBeerOrderLines()).hasSize(2));
+    }
+
+    @Transactional
+    @Test
+    void testPlaceOrderUnknownBeer() {
+        BeerOrderDTO order = newOrder(5);
+        order.getBeerOrderLines().add(BeerOrderLineDTO.builder()
+                .beerId(UUID.randomUUID())
+                .orderQuantity(1)
+                .build());
+        long ordersBefore = beerOrderRepository.count();
+
+        assertThat(beerOrderService.placeOrder(order)).isEmpty();
+        assertThat(beerOrderRepository.count()).isEqualTo(ordersBefore);
+    }
+
+    @Transactional
+    @Test
+    void testPlaceOrderUnknownCustomer() {
+        BeerOrderDTO order = newOrder(5);
+        order.setCustomerId(UUID.randomUUID());
+
+        assertThat(beerOrderService.placeOrder(order)).isEmpty();
+    }
+
+    private BeerOrderDTO newOrder(int lines) {
+        List<BeerOrderLineDTO> orderLines = new ArrayList<>();
+
+        for (Beer beer : beerRepository.findAll(PageRequest.of(0, lines))) {
+            orderLines.add(BeerOrderLineDTO.builder()
+                    .beerId(beer.getId())
+                    .orderQuantity(orderLines.size() + 1)
+                    .build());
+        }
+
+        return BeerOrderDTO.builder()
+                .customerId(customerRepository.findAll().getFirst().getId())
+                .customerRef("Order of " + lines)
+                .beerOrderLines(orderLines)
+                .build();
+    }
+}
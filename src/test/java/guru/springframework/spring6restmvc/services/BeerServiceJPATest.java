@@ -0,0 +1,435 @@
+package guru.springframework.spring6restmvc.services;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import guru.springframework.spring6restmvc.config.CacheConfig;
+import guru.springframework.spring6restmvc.entities.Beer;
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class BeerServiceJPATest {
+
+    @Autowired
+    BeerServiceJPA beerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    Statistics statistics;
+
+    // beers committed by tests that cannot run in a rolled back transaction; removed even when an assertion fails
+    List<UUID> savedBeerIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        savedBeerIds.forEach(beerService::deleteById);
+    }
+
+    @Transactional
+    @Test
+    void testHideInventoryIssuesNoUpdates() {
+        Page<BeerDTO> beers = beerService.listBeers(null, List.of(BeerStyle.IPA), null, null, false, null, 1, 100);
+        entityManager.flush();
+
+        assertThat(beers.getContent()).hasSize(100);
+        assertThat(beers.getContent()).allMatch(beerDTO -> beerDTO.getQuantityOnHand() == null);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    void testShowInventoryKeepsQuantity() {
+        Page<BeerDTO> beers = beerService.listBeers(null, List.of(BeerStyle.IPA), null, null, true, null, 1, 100);
+
+        assertThat(beers.getContent()).anyMatch(beerDTO -> beerDTO.getQuantityOnHand() != null);
+    }
+
+    @Test
+    void testNameIndexMatchesLikeQuery() {
+        for (int pageNumber = 1; pageNumber <= 2; pageNumber++) {
+            Page<BeerDTO> fromIndex = beerService.listBeers("IPA", null, null, null, true, null, pageNumber, 10);
+            Page<Beer> fromLike = beerRepository.findAllByBeerNameIsLikeIgnoreCase("%IPA%",
+                    PageRequest.of(pageNumber - 1, 10, Sort.by("beerName", "id")));
+
+            assertThat(fromIndex.getTotalElements()).isEqualTo(fromLike.getTotalElements());
+            assertThat(fromIndex.getContent()).hasSize(10);
+            assertThat(fromIndex.getContent()).extracting(BeerDTO::getId)
+                    .containsExactlyElementsOf(fromLike.getContent().stream().map(Beer::getId).toList());
+        }
+    }
+
+    @Test
+    void testListBeersByStylesAndPriceRange() {
+        List<BeerStyle> beerStyles = List.of(BeerStyle.IPA, BeerStyle.PALE_ALE);
+        BigDecimal minPrice = new BigDecimal("10.00");
+        BigDecimal maxPrice = new BigDecimal("12.00");
+
+        Page<BeerDTO> beers = beerService.listBeers(null, beerStyles, minPrice, maxPrice, true, null, 1, 1000);
+
+        List<UUID> expected = beerRepository.findAll().stream()
+                .filter(beer -> beerStyles.contains(beer.getBeerStyle()))
+                .filter(beer -> beer.getPrice().compareTo(minPrice) >= 0 && beer.getPrice().compareTo(maxPrice) <= 0)
+                .map(Beer::getId)
+                .toList();
+
+        assertThat(expected).isNotEmpty();
+        assertThat(beers.getTotalElements()).isEqualTo(expected.size());
+        assertThat(beers.getContent()).extracting(BeerDTO::getId).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void testListBeersByNameAndPriceSkipsNameIndex() {
+        BigDecimal maxPrice = new BigDecimal("12.00");
+
+        Page<BeerDTO> beers = beerService.listBeers("IPA", null, null, maxPrice, true, null, 1, 1000);
+
+        assertThat(beers.getContent()).isNotEmpty();
+        assertThat(beers.getContent()).allMatch(beerDTO -> beerDTO.getBeerName().toUpperCase().contains("IPA")
+                && beerDTO.getPrice().compareTo(maxPrice) <= 0);
+    }
+
+    @Test
+    void testConditionalPatchIssuesSingleUpdate() {
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Price Feed Pils")
+                .beerStyle(BeerStyle.PILSNER)
+                .upc("price-feed-1")
+                .price(new BigDecimal("8.99"))
+                .build());
+        statistics.clear();
+
+        Optional<Integer> newVersion = beerService.patchBeerByIdIfMatch(saved.getId(), saved.getVersion(),
+                BeerDTO.builder().price(new BigDecimal("9.49")).build());
+
+        assertThat(newVersion).contains(saved.getVersion() + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        BeerDTO reloaded = beerService.getBeerById(saved.getId()).orElseThrow();
+        assertThat(reloaded.getPrice()).isEqualByComparingTo("9.49");
+        assertThat(reloaded.getVersion()).isEqualTo(saved.getVersion() + 1);
+
+        assertThatThrownBy(() -> beerService.updateBeerByIdIfMatch(saved.getId(), saved.getVersion(), reloaded))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        beerService.deleteById(saved.getId());
+
+        assertThat(beerService.patchBeerByIdIfMatch(saved.getId(), saved.getVersion(), reloaded)).isEmpty();
+    }
+
+    @Test
+    void testDeleteWithoutLoading() {
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Discontinued Dunkel")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("discontinued-1")
+                .price(new BigDecimal("7.99"))
+                .build());
+        statistics.clear();
+
+        assertThat(beerService.deleteById(saved.getId())).isTrue();
+
+        // the category links and the beer itself, nothing read first
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(beerRepository.existsById(saved.getId())).isFalse();
+        assertThat(beerService.getBeerByUpc("discontinued-1").map(BeerDTO::getId)).isEmpty();
+
+        assertThat(beerService.deleteById(saved.getId())).isFalse();
+    }
+
+    @Test
+    void testConcurrentInventoryAdjustmentsLoseNothing() throws Exception {
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Warehouse Weizen")
+                .beerStyle(BeerStyle.WHEAT)
+                .upc("warehouse-1")
+                .quantityOnHand(0)
+                .price(new BigDecimal("6.99"))
+                .build());
+
+        int threads = 16;
+        int adjustmentsPerThread = 200;
+
+        // every thread alternates +3 and -1, so stock never runs out and every adjustment must land
+        runConcurrently(threads, () -> {
+            for (int i = 0; i < adjustmentsPerThread; i++) {
+                beerService.adjustInventory(saved.getId(), i % 2 == 0 ? 3 : -1);
+            }
+        });
+
+        BeerDTO adjusted = beerService.getBeerById(saved.getId()).orElseThrow();
+        assertThat(adjusted.getQuantityOnHand()).isEqualTo(threads * adjustmentsPerThread / 2 * (3 - 1));
+        assertThat(adjusted.getVersion()).isEqualTo(saved.getVersion() + threads * adjustmentsPerThread);
+    }
+
+    @Test
+    void testConcurrentDecrementsStopAtZero() throws Exception {
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Last Call Lager")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("warehouse-2")
+                .quantityOnHand(50)
+                .price(new BigDecimal("6.99"))
+                .build());
+
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        runConcurrently(16, () -> {
+            for (int i = 0; i < 10; i++) {
+                try {
+                    beerService.adjustInventory(saved.getId(), -1);
+                    taken.incrementAndGet();
+                } catch (InsufficientInventoryException e) {
+                    refused.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(taken.get()).isEqualTo(50);
+        assertThat(refused.get()).isEqualTo(16 * 10 - 50);
+        assertThat(beerService.getBeerById(saved.getId()).orElseThrow().getQuantityOnHand()).isZero();
+        assertThat(beerService.adjustInventory(UUID.randomUUID(), 1)).isFalse();
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = IntStream.range(0, threads)
+                    .<Future<?>>mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        task.run();
+                        return null;
+                    }))
+                    .toList();
+
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testNameIndexFollowsWrites() {
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Zzyzx Trigram Test Ale")
+                .beerStyle(BeerStyle.ALE)
+                .upc("trigram-1")
+                .price(new BigDecimal("9.99"))
+                .build());
+
+        assertThat(beerService.listBeers("zzyzx", null, null, null, true, null, 1, 25).getContent())
+                .extracting(BeerDTO::getId).containsExactly(saved.getId());
+
+        beerService.deleteById(saved.getId());
+
+        assertThat(beerService.listBeers("zzyzx", null, null, null, true, null, 1, 25).getContent()).isEmpty();
+    }
+
+    @Test
+    void testGetBeerByIdReadsThroughCache() {
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Cached Ale")
+                .beerStyle(BeerStyle.ALE)
+                .upc("cache-1")
+                .price(new BigDecimal("9.99"))
+                .build());
+        cacheManager.getCache(CacheConfig.BEER_CACHE).evict(saved.getId());
+
+        CacheStats before = beerCacheStats();
+        beerService.getBeerById(saved.getId());
+        beerService.getBeerById(saved.getId());
+        CacheStats after = beerCacheStats().minus(before);
+
+        assertThat(after.missCount()).isEqualTo(1);
+        assertThat(after.hitCount()).isEqualTo(1);
+
+        saved.setBeerName("Cached Ale Updated");
+        beerService.updateBeerById(saved.getId(), saved);
+
+        assertThat(beerService.getBeerById(saved.getId())).get()
+                .extracting(BeerDTO::getBeerName).isEqualTo("Cached Ale Updated");
+
+        beerService.deleteById(saved.getId());
+
+        assertThat(beerService.getBeerById(saved.getId())).isEmpty();
+    }
+
+    @Transactional
+    @Test
+    void testSaveNewBeersBatchesInserts() {
+        List<BeerDTO> beers = IntStream.range(0, 120)
+                .mapToObj(i -> BeerDTO.builder()
+                        .beerName("Bulk Ale " + i)
+                        .beerStyle(BeerStyle.ALE)
+                        .upc("bulk-" + i)
+                        .price(new BigDecimal("9.99"))
+                        .build())
+                .toList();
+
+        List<UUID> ids = beerService.saveNewBeers(beers);
+        entityManager.flush();
+
+        assertThat(ids).hasSize(120).doesNotHaveDuplicates();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        // one prepared statement per JDBC batch of 50, not one per beer
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+        assertThat(beerRepository.findAllById(ids)).hasSize(120);
+    }
+
+    @Test
+    void testStyleCountsMatchListingTotals() {
+        Map<BeerStyle, Long> counts = beerService.countBeersByStyle(null);
+
+        assertThat(counts).containsOnlyKeys(BeerStyle.values());
+        assertThat(counts.get(BeerStyle.IPA))
+                .isEqualTo(beerService.listBeers(null, List.of(BeerStyle.IPA), null, null, true, null, 1, 25).getTotalElements());
+        assertThat(counts.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(beerRepository.count());
+    }
+
+    @Test
+    void testStyleCountsEvictedOnWrite() {
+        long before = beerService.countBeersByStyle("ipa").get(BeerStyle.IPA);
+
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Facet IPA")
+                .beerStyle(BeerStyle.IPA)
+                .upc("facet-1")
+                .price(new BigDecimal("9.99"))
+                .build());
+
+        assertThat(beerService.countBeersByStyle("ipa").get(BeerStyle.IPA)).isEqualTo(before + 1);
+
+        beerService.deleteById(saved.getId());
+
+        assertThat(beerService.countBeersByStyle("ipa").get(BeerStyle.IPA)).isEqualTo(before);
+    }
+
+    @Test
+    void testUpcLookupFollowsWrites() {
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Upc Lager")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("upc-before")
+                .price(new BigDecimal("9.99"))
+                .build());
+
+        assertThat(beerService.getBeerByUpc("upc-before").map(BeerDTO::getId)).contains(saved.getId());
+
+        saved.setUpc("upc-after");
+        beerService.updateBeerById(saved.getId(), saved);
+
+        assertThat(beerService.getBeerByUpc("upc-before").map(BeerDTO::getId)).isEmpty();
+        assertThat(beerService.getBeerByUpc("upc-after").map(BeerDTO::getId)).contains(saved.getId());
+
+        beerService.deleteById(saved.getId());
+
+        assertThat(beerService.getBeerByUpc("upc-after").map(BeerDTO::getId)).isEmpty();
+    }
+
+    @Test
+    void testUpcLookupEvictsStaleEntry() {
+        BeerDTO saved = saveBeer(BeerDTO.builder()
+                .beerName("Moved Upc Lager")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("upc-moved")
+                .price(new BigDecimal("9.99"))
+                .build());
+
+        assertThat(beerService.getBeerByUpc("upc-moved").map(BeerDTO::getId)).contains(saved.getId());
+
+        // another instance hands the upc to a new beer; neither write goes through this instance's upc index
+        Beer movedBeer = beerRepository.findById(saved.getId()).orElseThrow();
+        movedBeer.setUpc("upc-moved-away");
+        beerRepository.saveAndFlush(movedBeer);
+        Beer newBeer = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("New Upc Lager")
+                .beerStyle(BeerStyle.LAGER)
+                .upc("upc-moved")
+                .price(new BigDecimal("9.99"))
+                .build());
+        savedBeerIds.add(newBeer.getId());
+        cacheManager.getCache(CacheConfig.BEER_CACHE).clear();
+
+        assertThat(beerService.getBeerByUpc("upc-moved").map(BeerDTO::getId)).contains(newBeer.getId());
+
+        beerRepository.deleteById(newBeer.getId());
+        savedBeerIds.remove(newBeer.getId());
+        cacheManager.getCache(CacheConfig.BEER_CACHE).clear();
+
+        assertThat(beerService.getBeerByUpc("upc-moved")).isEmpty();
+    }
+
+    private BeerDTO saveBeer(BeerDTO beer) {
+        BeerDTO saved = beerService.saveNewBeer(beer);
+
+        savedBeerIds.add(saved.getId());
+        return saved;
+    }
+
+    private CacheStats beerCacheStats() {
+        TransactionAwareCacheDecorator decorator =
+                (TransactionAwareCacheDecorator) cacheManager.getCache(CacheConfig.BEER_CACHE);
+
+        return ((CaffeineCache) decorator.getTargetCache()).getNativeCache().stats();
+    }
+}
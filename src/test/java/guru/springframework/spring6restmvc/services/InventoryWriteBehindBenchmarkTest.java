@@ -0,0 +1,125 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Adjustments per second on {@link #HOT_BEERS} hot beers from {@link #THREADS} threads, through the direct guarded
+ * UPDATE against the write-behind counters (including the flushes that run meanwhile). Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "beer.inventory.write-behind.enabled=true")
+class InventoryWriteBehindBenchmarkTest {
+
+    static final int HOT_BEERS = 4;
+    static final int THREADS = 32;
+    static final int ADJUSTMENTS_PER_THREAD = 2000;
+
+    @Autowired
+    BeerServiceJPA beerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    InventoryWriteBehind inventoryWriteBehind;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    List<UUID> hotBeers = List.of();
+
+    @AfterEach
+    void tearDown() {
+        hotBeers.forEach(beerService::deleteById);
+    }
+
+    @Test
+    void compareDirectUpdatesWithWriteBehind() throws Exception {
+        hotBeers = IntStream.range(0, HOT_BEERS)
+                .mapToObj(i -> beerService.saveNewBeer(BeerDTO.builder()
+                        .beerName("Release Day " + i)
+                        .beerStyle(BeerStyle.IPA)
+                        .upc("release-day-" + i)
+                        .quantityOnHand(0)
+                        .price(new BigDecimal("14.99"))
+                        .build()).getId())
+                .toList();
+
+        // the statement the direct path runs, without the write-behind switch in front of it
+        BiConsumer<UUID, Integer> direct = (beerId, delta) -> transactionTemplate.executeWithoutResult(status ->
+                beerRepository.adjustQuantityOnHand(beerId, delta, LocalDateTime.now()));
+        BiConsumer<UUID, Integer> writeBehind = (beerId, delta) -> beerService.adjustInventory(beerId, delta);
+
+        run(hotBeers, direct);
+        run(hotBeers, writeBehind);
+
+        long directMillis = run(hotBeers, direct);
+        long writeBehindMillis = run(hotBeers, writeBehind);
+        inventoryWriteBehind.flush();
+
+        int adjustments = THREADS * ADJUSTMENTS_PER_THREAD;
+        System.out.printf("direct UPDATE: %,d adjustments in %,d ms (%,.0f/s)%n", adjustments, directMillis,
+                adjustments * 1000.0 / Math.max(directMillis, 1));
+        System.out.printf("write-behind:  %,d adjustments in %,d ms (%,.0f/s)%n", adjustments, writeBehindMillis,
+                adjustments * 1000.0 / Math.max(writeBehindMillis, 1));
+
+        // four runs of +1 per adjustment, spread evenly over the hot beers
+        for (UUID beerId : hotBeers) {
+            assertThat(beerRepository.findQuantityOnHandById(beerId)).contains(4 * adjustments / HOT_BEERS);
+        }
+
+        assertThat(writeBehindMillis).isLessThan(directMillis);
+    }
+
+    private static long run(List<UUID> hotBeers, BiConsumer<UUID, Integer> adjust) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = IntStream.range(0, THREADS)
+                    .<Future<?>>mapToObj(thread -> executor.submit(() -> {
+                        start.await();
+
+                        for (int i = 0; i < ADJUSTMENTS_PER_THREAD; i++) {
+                            adjust.accept(hotBeers.get((thread + i) % HOT_BEERS), 1);
+                        }
+
+                        return null;
+                    }))
+                    .toList();
+
+            long begin = System.nanoTime();
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            return (System.nanoTime() - begin) / 1_000_000;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
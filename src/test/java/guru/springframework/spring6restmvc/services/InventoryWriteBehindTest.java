@@ -0,0 +1,128 @@
+package guru.springframework.spring6restmvc.services;
+
+import guru.springframework.spring6restmvc.model.BeerDTO;
+import guru.springframework.spring6restmvc.model.BeerStyle;
+import guru.springframework.spring6restmvc.repositories.BeerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the scheduled flush is pushed out of the way so each test decides when to flush
+@SpringBootTest(properties = {
+        "beer.inventory.write-behind.enabled=true",
+        "beer.inventory.write-behind.flush-interval-ms=3600000"
+})
+class InventoryWriteBehindTest {
+
+    @Autowired
+    BeerServiceJPA beerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    InventoryWriteBehind inventoryWriteBehind;
+
+    List<UUID> savedBeerIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        savedBeerIds.forEach(beerService::deleteById);
+    }
+
+    @Test
+    void testReadsMergeUnflushedDeltas() throws Exception {
+        BeerDTO saved = saveBeer("write-behind-1", 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = IntStream.range(0, 8)
+                .<Future<?>>mapToObj(i -> executor.submit(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        beerService.adjustInventory(saved.getId(), 1);
+                    }
+                }))
+                .toList();
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(beerRepository.findQuantityOnHandById(saved.getId())).contains(10);
+        assertThat(beerService.getBeerById(saved.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(4010);
+        assertThat(beerService.listBeers("Write Behind write-behind-1", null, null, null, true, null, 1, 25)
+                .getContent()).extracting(BeerDTO::getQuantityOnHand).containsExactly(4010);
+
+        inventoryWriteBehind.flush();
+
+        assertThat(inventoryWriteBehind.pending(saved.getId())).isZero();
+        assertThat(beerRepository.findQuantityOnHandById(saved.getId())).contains(4010);
+        assertThat(beerService.getBeerById(saved.getId()).orElseThrow().getQuantityOnHand()).isEqualTo(4010);
+    }
+
+    @Test
+    void testFlushClampsOversoldStockAtZero() {
+        BeerDTO saved = saveBeer("write-behind-2", 3);
+
+        assertThat(beerService.adjustInventory(saved.getId(), -5)).isTrue();
+        assertThat(beerService.getBeerById(saved.getId()).orElseThrow().getQuantityOnHand()).isZero();
+
+        inventoryWriteBehind.flush();
+
+        assertThat(beerRepository.findQuantityOnHandById(saved.getId())).contains(0);
+    }
+
+    @Test
+    void testDeletedBeerDropsPendingDelta() {
+        BeerDTO saved = saveBeer("write-behind-3", 3);
+
+        assertThat(beerService.adjustInventory(UUID.randomUUID(), 1)).isFalse();
+        assertThat(beerService.adjustInventory(saved.getId(), 2)).isTrue();
+
+        beerService.deleteById(saved.getId());
+        inventoryWriteBehind.flush();
+
+        assertThat(inventoryWriteBehind.pending(saved.getId())).isZero();
+    }
+
+    @Test
+    void testExportMergesUnflushedDeltas() {
+        BeerDTO saved = saveBeer("write-behind-export", 10);
+
+        beerService.adjustInventory(saved.getId(), 5);
+
+        List<BeerDTO> exported = new ArrayList<>();
+        beerService.exportBeers(exported::add);
+
+        assertThat(exported).filteredOn(beer -> beer.getId().equals(saved.getId()))
+                .singleElement()
+                .extracting(BeerDTO::getQuantityOnHand)
+                .isEqualTo(15);
+        assertThat(beerRepository.findQuantityOnHandById(saved.getId())).contains(10);
+    }
+
+    private BeerDTO saveBeer(String upc, int quantityOnHand) {
+        BeerDTO saved = beerService.saveNewBeer(BeerDTO.builder()
+                .beerName("Write Behind " + upc)
+                .beerStyle(BeerStyle.IPA)
+                .upc(upc)
+                .quantityOnHand(quantityOnHand)
+                .price(new BigDecimal("8.99"))
+                .build());
+
+        savedBeerIds.add(saved.getId());
+        return saved;
+    }
+}